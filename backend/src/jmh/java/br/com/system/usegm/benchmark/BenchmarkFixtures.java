@@ -0,0 +1,78 @@
+package br.com.system.usegm.benchmark;
+
+import br.com.system.usegm.domain.order.Order;
+import br.com.system.usegm.domain.order.OrderProduct;
+import br.com.system.usegm.domain.order.OrderStatusEnum;
+import br.com.system.usegm.domain.order.embeddable.CustomerDetails;
+import br.com.system.usegm.domain.order.embeddable.ShippingDetails;
+import br.com.system.usegm.domain.order.embeddable.ShippingTypeEnum;
+import br.com.system.usegm.domain.product.Product;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Dados e stubs compartilhados pelos benchmarks. Os repositórios são substituídos por proxies
+ * que devolvem dados já montados em memória, para medir apenas o código da aplicação.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            Product product = new Product();
+            product.setId(i);
+            product.setName("Produto " + i);
+            product.setReference("REF-" + i);
+            product.setQuantity(1000);
+            product.setImageHash(String.format("%064x", i));
+            product.setImageContentType("image/jpeg");
+            product.setCreatedAt(LocalDateTime.now());
+            products.add(product);
+        }
+        return products;
+    }
+
+    static List<Order> orders(int count, int linesPerOrder) {
+        List<Product> products = products(linesPerOrder * 4);
+        List<Order> orders = new ArrayList<>(count);
+        long lineId = 1;
+        for (long i = 1; i <= count; i++) {
+            Order order = new Order();
+            order.setId(i);
+            order.setCustomerDetails(new CustomerDetails("Cliente " + i, "cliente" + i + "@usegm.com", "11999990000"));
+            order.setShippingDetails(new ShippingDetails(ShippingTypeEnum.EXCURSAO, null, null, null, null, null, null,
+                    LocalDate.now(), "Excursão " + i, "12", "B", null));
+            order.setStatus(OrderStatusEnum.ABERTO);
+            order.setCreatedAt(LocalDateTime.now().minusMinutes(i));
+            order.setObservations("Observação do pedido " + i);
+            for (int line = 0; line < linesPerOrder; line++) {
+                Product product = products.get((int) ((i + line) % products.size()));
+                order.getOrderProducts().add(new OrderProduct(lineId++, order, product, line + 1));
+            }
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /**
+     * Implementa a interface com um proxy que responde apenas aos métodos informados.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) return answer.apply(args);
+            if (method.getDeclaringClass() == Object.class) return method.invoke(answers, args);
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.system.usegm.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teste de carga HTTP contra uma instância em execução, para comparar o modo de threads de
+ * plataforma com o de threads virtuais ({@code VIRTUAL_THREADS_ENABLED}). Mede vazão e
+ * percentis de latência de rotas que passam pelo PostgreSQL e grava o resultado em JSON.
+ * Com {@code --body} a rota recebe um POST com o JSON do arquivo (ex.: criação de pedidos, para
+ * comparar o commit em grupo, {@code ORDER_GROUP_COMMIT}, com o caminho normal).
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=br.com.system.usegm.benchmark.HttpLoadBenchmark \
+ *     -Dexec.args="--label=virtual --concurrency=400 --duration=30"
+ * </pre>
+ */
+public class HttpLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String baseUrl = options.getOrDefault("url", "http://localhost:8080");
+        String path = options.getOrDefault("path", "/api/v1/orders?status=ABERTO&size=20");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "20")));
+        Path output = Path.of(options.getOrDefault("output", "target/http-load-" + options.getOrDefault("label", "run") + ".json"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String token = login(client, baseUrl, options.getOrDefault("email", "a@a"), options.getOrDefault("password", "x"));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30));
+        if (options.containsKey("body")) {
+            builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(Files.readString(Path.of(options.get("body")))));
+        }
+        HttpRequest request = builder.build();
+
+        run(client, request, concurrency, warmup);
+        Result result = run(client, request, concurrency, duration);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", options.getOrDefault("label", "run"));
+        report.put("path", path);
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", duration.toSeconds());
+        report.put("requests", result.latencies.length);
+        report.put("errors", result.errors);
+        report.put("throughputPerSecond", result.latencies.length / (double) duration.toSeconds());
+        report.put("p50Ms", percentile(result.latencies, 0.50));
+        report.put("p90Ms", percentile(result.latencies, 0.90));
+        report.put("p99Ms", percentile(result.latencies, 0.99));
+        report.put("maxMs", percentile(result.latencies, 1.0));
+
+        String json = new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(report);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, json);
+        System.out.println(json);
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> workers = new ArrayList<>(concurrency);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> worker : workers) {
+            long[] latencies = worker.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        return new Result(all, errors.get());
+    }
+
+    private static String login(HttpClient client, String baseUrl, String email, String password) throws Exception {
+        String body = new ObjectMapper().writeValueAsString(Map.of("email", email, "password", password));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/v1/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        return new ObjectMapper().readTree(response.body()).get("token").asText();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000d;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+        return options;
+    }
+
+    private record Result(long[] latencies, long errors) {
+    }
+}
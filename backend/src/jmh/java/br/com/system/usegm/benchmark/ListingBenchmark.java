@@ -0,0 +1,124 @@
+package br.com.system.usegm.benchmark;
+
+import br.com.system.usegm.domain.order.Order;
+import br.com.system.usegm.domain.order.OrderMapper;
+import br.com.system.usegm.domain.order.OrderProduct;
+import br.com.system.usegm.domain.order.OrderRepository;
+import br.com.system.usegm.domain.order.OrderService;
+import br.com.system.usegm.domain.order.OrderStatusEnum;
+import br.com.system.usegm.domain.order.dto.OrderResponse;
+import br.com.system.usegm.domain.order.projection.OrderLineRow;
+import br.com.system.usegm.domain.order.projection.OrderListRow;
+import br.com.system.usegm.domain.product.HotStockLedger;
+import br.com.system.usegm.domain.product.Product;
+import br.com.system.usegm.domain.product.ProductCatalogCache;
+import br.com.system.usegm.domain.product.ProductImageService;
+import br.com.system.usegm.domain.product.ProductMapper;
+import br.com.system.usegm.domain.product.ProductRepository;
+import br.com.system.usegm.domain.product.ProductSearchIndex;
+import br.com.system.usegm.domain.product.ProductService;
+import br.com.system.usegm.domain.product.dto.ProductResponse;
+import br.com.system.usegm.infra.storage.ImageStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Montagem das listagens como o {@code OrderService.getPagedOrders} e o
+ * {@code ProductService.getAllProducts} fazem, com os repositórios devolvendo páginas já carregadas.
+ * {@code listProjection} escolhe o caminho dos pedidos, como {@code api.orders.list.projection}:
+ * projeções de colunas ou entidades com as linhas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListingBenchmark {
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    @Param({"false", "true"})
+    boolean useModelMapper;
+
+    @Param({"false", "true"})
+    boolean listProjection;
+
+    private OrderService orderService;
+    private ProductService productService;
+    private Pageable pageable;
+
+    @Setup
+    public void setup() {
+        pageable = PageRequest.of(0, pageSize);
+        Page<Order> orders = new PageImpl<>(BenchmarkFixtures.orders(pageSize, 10), pageable, pageSize * 50L);
+        Page<Product> products = new PageImpl<>(BenchmarkFixtures.products(pageSize), pageable, pageSize * 50L);
+
+        Page<OrderListRow> listRows = orders.map(order -> new OrderListRow(order.getId(), order.getCustomerDetails(),
+                order.getShippingDetails(), order.getStatus(), order.getCreatedAt(), order.getObservations()));
+        List<OrderLineRow> lineRows = orders.stream()
+                .flatMap(order -> order.getOrderProducts().stream()
+                        .map(line -> new OrderLineRow(order.getId(), line.getProduct().getId(), line.getQuantity())))
+                .toList();
+        OrderRepository orderRepository = BenchmarkFixtures.stub(OrderRepository.class, Map.of(
+                "findAllByStatusWithItems", args -> orders,
+                "findListRows", args -> listRows,
+                "findLineRows", args -> lineRows));
+        Map<Long, Product> catalog = orders.stream()
+                .flatMap(order -> order.getOrderProducts().stream())
+                .map(OrderProduct::getProduct)
+                .collect(Collectors.toMap(Product::getId, Function.identity(), (a, b) -> a));
+        ProductRepository productRepository = BenchmarkFixtures.stub(ProductRepository.class, Map.of(
+                "findAllByReference", args -> products,
+                "findAllById", args -> StreamSupport.stream(((Iterable<?>) args[0]).spliterator(), false)
+                        .map(catalog::get)
+                        .toList()));
+
+        // Cache já aquecido após a primeira iteração, como em produção
+        ProductCatalogCache productCatalogCache = new ProductCatalogCache(productRepository, new SimpleMeterRegistry(),
+                Duration.ofMinutes(10), 10_000);
+        ModelMapper modelMapper = new ModelMapper();
+        ProductImageService productImageService = new ProductImageService(
+                new ImageStore(System.getProperty("java.io.tmpdir")), null, productRepository, productCatalogCache);
+
+        orderService = new OrderService(orderRepository, null, productImageService, new OrderMapper(modelMapper, useModelMapper),
+                productCatalogCache, null, null, null);
+        orderService.setListProjection(listProjection);
+        productService = new ProductService(productRepository, productImageService, new ProductMapper(modelMapper, useModelMapper),
+                new ProductSearchIndex(null), productCatalogCache, new HotStockLedger(null, List.of(), Duration.ZERO));
+    }
+
+    @Benchmark
+    public Page<OrderResponse> pagedOrders() {
+        return orderService.getAllOrders(OrderStatusEnum.ABERTO, pageable, false, false);
+    }
+
+    @Benchmark
+    public Page<ProductResponse> pagedProducts() {
+        return productService.getAllProducts(null, pageable);
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.system.usegm.benchmark;
+
+import br.com.system.usegm.domain.order.Order;
+import br.com.system.usegm.domain.order.OrderMapper;
+import br.com.system.usegm.domain.order.dto.OrderResponse;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão de uma página de {@link Order} para {@link OrderResponse}: ModelMapper x mapeador explícito.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMappingBenchmark {
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    @Param({"10"})
+    int linesPerOrder;
+
+    private List<Order> orders;
+    private ModelMapper modelMapper;
+    private OrderMapper orderMapper;
+
+    @Setup
+    public void setup() {
+        orders = BenchmarkFixtures.orders(pageSize, linesPerOrder);
+        modelMapper = new ModelMapper();
+        orderMapper = new OrderMapper(modelMapper, false);
+        // A primeira chamada do ModelMapper monta o TypeMap; fica fora da medição
+        modelMapper.map(orders.get(0), OrderResponse.class);
+    }
+
+    @Benchmark
+    public List<OrderResponse> modelMapper() {
+        List<OrderResponse> responses = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            responses.add(modelMapper.map(order, OrderResponse.class));
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public List<OrderResponse> explicitMapper() {
+        List<OrderResponse> responses = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            responses.add(orderMapper.toResponse(order));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.system.usegm.benchmark;
+
+import br.com.system.usegm.domain.user.User;
+import br.com.system.usegm.domain.user.UserMapper;
+import br.com.system.usegm.domain.user.UserRepository;
+import br.com.system.usegm.domain.user.UserService;
+import br.com.system.usegm.domain.user.payload.LoginRequestDTO;
+import br.com.system.usegm.domain.user.payload.TokenResponseDTO;
+import br.com.system.usegm.infra.security.PasswordHashingService;
+import br.com.system.usegm.infra.security.TokenService;
+import br.com.system.usegm.infra.security.UserPrincipalCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo da autenticação: assinatura e verificação do JWT no {@link TokenService} e o
+ * {@link UserService#login} completo, dominado pela verificação BCrypt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityBenchmark {
+
+    private static final String PASSWORD = "senha-de-benchmark";
+
+    private TokenService tokenService;
+    private TokenService uncachedTokenService;
+    private UserService userService;
+    private PasswordEncoder passwordEncoder;
+    private User user;
+    private String token;
+    private String passwordHash;
+    private LoginRequestDTO loginRequest;
+
+    @Setup
+    public void setup() {
+        tokenService = new TokenService("benchmark-secret", 10_000);
+        uncachedTokenService = new TokenService("benchmark-secret", 0);
+
+        passwordEncoder = new BCryptPasswordEncoder();
+        passwordHash = passwordEncoder.encode(PASSWORD);
+        user = new User("1", "Usuário", "usuario@usegm.com", passwordHash, "USER", null);
+        token = tokenService.generateToken(user);
+        loginRequest = new LoginRequestDTO(user.getEmail(), PASSWORD);
+
+        UserRepository userRepository = BenchmarkFixtures.stub(UserRepository.class,
+                Map.of("findByEmail", args -> Optional.of(user)));
+        PasswordHashingService passwordHashingService = new PasswordHashingService(passwordEncoder, new SimpleMeterRegistry(),
+                2, 50, Duration.ofSeconds(10));
+        userService = new UserService(userRepository, passwordHashingService, userRepository, tokenService,
+                new UserMapper(new ModelMapper(), false), new UserPrincipalCache(userRepository, Duration.ofMinutes(5), 1000, Duration.ofSeconds(30)));
+    }
+
+    @Benchmark
+    public String jwtSign() {
+        return tokenService.generateToken(user);
+    }
+
+    @Benchmark
+    public String jwtVerify() {
+        return uncachedTokenService.validateToken(token);
+    }
+
+    @Benchmark
+    public String jwtVerifyCached() {
+        return tokenService.validateToken(token);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean bcryptMatches() {
+        return passwordEncoder.matches(PASSWORD, passwordHash);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public TokenResponseDTO login() {
+        return userService.login(loginRequest);
+    }
+}
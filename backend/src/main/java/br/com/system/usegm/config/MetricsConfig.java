@@ -0,0 +1,23 @@
+package br.com.system.usegm.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Timers dos serviços anotados com {@code @Timed(SERVICE_TIMER)}: um por método público, com as tags
+ * {@code class}, {@code method} e {@code exception}. Repositórios ({@code spring.data.repository.invocations}),
+ * pool Hikari ({@code hikaricp.*}), JVM e requisições HTTP já vêm do Actuator; tudo sai em
+ * {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "usegm.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
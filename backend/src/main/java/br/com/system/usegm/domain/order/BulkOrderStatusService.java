@@ -0,0 +1,139 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.dto.BulkStatusRequest;
+import br.com.system.usegm.domain.order.dto.BulkStatusResponse;
+import br.com.system.usegm.domain.summary.OrderSummaryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Troca de status em massa com UPDATEs set-based em lotes, sem carregar os pedidos nem as
+ * linhas: cada lote é um único {@code UPDATE ... RETURNING id} e só a tabela {@code orders} é
+ * escrita (além do resumo por status, na mesma transação do lote). Cada lote é atômico por si;
+ * um erro no meio mantém os lotes anteriores aplicados.
+ */
+@Service
+public class BulkOrderStatusService {
+
+    // O RETURNING devolve o status anterior, que o resumo por status precisa para descontar
+    private static final String UPDATE_BY_IDS_SQL = """
+            UPDATE orders o SET status = ?
+            FROM (SELECT id, status FROM orders WHERE status IS DISTINCT FROM ? AND id IN (%s) FOR UPDATE) previous
+            WHERE o.id = previous.id
+            RETURNING o.id, previous.status
+            """;
+    private static final String EXISTING_IDS_SQL = "SELECT id FROM orders WHERE id IN (%s)";
+    // FOR UPDATE relê o status das linhas travadas: um pedido que saiu de fromStatus no meio fica de fora
+    private static final String UPDATE_BY_STATUS_SQL = """
+            UPDATE orders o SET status = ?
+            FROM (SELECT id, status FROM orders WHERE status = ? ORDER BY id LIMIT ? FOR UPDATE) previous
+            WHERE o.id = previous.id
+            RETURNING o.id, previous.status
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderChangeFeed orderChangeFeed;
+    private final int chunkSize;
+
+    public BulkOrderStatusService(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  OrderSummaryService orderSummaryService,
+                                  OrderChangeFeed orderChangeFeed,
+                                  @Value("${api.orders.bulk-status.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.orderSummaryService = orderSummaryService;
+        this.orderChangeFeed = orderChangeFeed;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkStatusResponse updateStatus(BulkStatusRequest request) {
+        return request.getFromStatus() != null
+                ? updateByStatus(request.getFromStatus(), request.getStatus())
+                : updateByIds(request.getIds(), request.getStatus());
+    }
+
+    private BulkStatusResponse updateByIds(List<Long> requestedIds, OrderStatusEnum status) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(requestedIds));
+        List<Long> updated = new ArrayList<>();
+        List<Long> unchanged = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+
+        for (int start = 0; start < ids.size(); start += chunkSize) {
+            List<Long> chunk = ids.subList(start, Math.min(start + chunkSize, ids.size()));
+            Set<Long> changed = new HashSet<>(updateChunk(chunk, status));
+
+            List<Long> remaining = chunk.stream().filter(id -> !changed.contains(id)).toList();
+            Set<Long> existing = remaining.isEmpty() ? Set.of() : new HashSet<>(jdbcTemplate.queryForList(
+                    EXISTING_IDS_SQL.formatted(placeholders(remaining.size())), Long.class, remaining.toArray()));
+
+            for (Long id : chunk) {
+                if (changed.contains(id)) updated.add(id);
+                else if (existing.contains(id)) unchanged.add(id);
+                else notFound.add(id);
+            }
+        }
+        return new BulkStatusResponse(status, updated, unchanged, notFound);
+    }
+
+    private BulkStatusResponse updateByStatus(OrderStatusEnum fromStatus, OrderStatusEnum status) {
+        List<Long> updated = new ArrayList<>();
+        if (fromStatus != status) {
+            List<Long> chunk;
+            do {
+                chunk = transactionTemplate.execute(tx -> {
+                    List<Long> changed = new ArrayList<>();
+                    Map<OrderStatusEnum, Long> previous = new EnumMap<>(OrderStatusEnum.class);
+                    jdbcTemplate.query(UPDATE_BY_STATUS_SQL, rs -> {
+                        OrderStatusEnum from = OrderStatusEnum.valueOf(rs.getString(2));
+                        changed.add(rs.getLong(1));
+                        previous.merge(from, 1L, Long::sum);
+                        orderChangeFeed.publish(OrderChangeType.STATUS_CHANGED, rs.getLong(1), status, from);
+                    }, status.name(), fromStatus.name(), chunkSize);
+                    orderSummaryService.applyStatusChange(previous, status);
+                    return changed;
+                });
+                updated.addAll(chunk);
+                // Pedidos que mudaram de status no meio encurtam o lote; só um lote vazio encerra
+            } while (!chunk.isEmpty());
+        }
+        return new BulkStatusResponse(status, updated, List.of(), List.of());
+    }
+
+    private List<Long> updateChunk(List<Long> chunk, OrderStatusEnum status) {
+        List<Object> args = new ArrayList<>(chunk.size() + 2);
+        args.add(status.name());
+        args.add(status.name());
+        args.addAll(chunk);
+        return transactionTemplate.execute(tx -> {
+            List<Long> changed = new ArrayList<>(chunk.size());
+            Map<OrderStatusEnum, Long> previous = new EnumMap<>(OrderStatusEnum.class);
+            jdbcTemplate.query(UPDATE_BY_IDS_SQL.formatted(placeholders(chunk.size())), rs -> {
+                changed.add(rs.getLong(1));
+                String from = rs.getString(2);
+                OrderStatusEnum fromStatus = from == null ? null : OrderStatusEnum.valueOf(from);
+                if (fromStatus != null) previous.merge(fromStatus, 1L, Long::sum);
+                orderChangeFeed.publish(OrderChangeType.STATUS_CHANGED, rs.getLong(1), status, fromStatus);
+            }, args.toArray());
+            orderSummaryService.applyStatusChange(previous, status);
+            return changed;
+        });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -13,14 +13,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created_at_id", columnList = "createdAt, id"),
+        @Index(name = "idx_orders_status_created_at_id", columnList = "status, createdAt, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Order {
 
+    // Sequência pooled, como em Product: com IDENTITY o Hibernate não agrupa os INSERTs em batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Embedded
@@ -37,6 +42,10 @@ public class Order {
 
     private String observations;
 
+    // Versão global mantida pelo banco (EntityVersionTriggers); base das ETags, nunca escrita pelo Hibernate
+    @Column(insertable = false, updatable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderProduct> orderProducts = new ArrayList<>();
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package br.com.system.usegm.domain.order;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tabelas de arquivo dos pedidos finalizados, {@code orders_archive} e {@code order_products_archive},
+ * particionadas por mês de {@code created_at} (as linhas levam a data do pedido). As tabelas
+ * quentes continuam mapeadas pelo JPA e sem partições: particioná-las exigiria a data na chave
+ * primária e nas FKs. As colunas do arquivo acompanham as das tabelas quentes, que o
+ * {@code ddl-auto} pode ampliar; as partições mensais são criadas sob demanda pelo
+ * {@link OrderArchiveService} e a DEFAULT só recebe pedidos sem data.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class OrderArchiveSchema implements InitializingBean {
+
+    private static final String[] DDL = {
+            "CREATE TABLE IF NOT EXISTS orders_archive (LIKE orders) PARTITION BY RANGE (created_at)",
+            "CREATE TABLE IF NOT EXISTS order_products_archive (LIKE order_products, created_at timestamp) PARTITION BY RANGE (created_at)",
+            "CREATE TABLE IF NOT EXISTS orders_archive_default PARTITION OF orders_archive DEFAULT",
+            "CREATE TABLE IF NOT EXISTS order_products_archive_default PARTITION OF order_products_archive DEFAULT",
+            "CREATE INDEX IF NOT EXISTS idx_orders_archive_id ON orders_archive (id)",
+            "CREATE INDEX IF NOT EXISTS idx_orders_archive_created_at_id ON orders_archive (created_at, id)",
+            "CREATE INDEX IF NOT EXISTS idx_orders_archive_status_created_at_id ON orders_archive (status, created_at, id)",
+            "CREATE INDEX IF NOT EXISTS idx_orders_archive_version ON orders_archive (version)",
+            "CREATE INDEX IF NOT EXISTS idx_orders_archive_status_version ON orders_archive (status, version)",
+            "CREATE INDEX IF NOT EXISTS idx_order_products_archive_order_id ON order_products_archive (order_id)"
+    };
+    private static final String COLUMNS_SQL = """
+            SELECT attname FROM pg_attribute
+            WHERE attrelid = CAST(? AS regclass) AND attnum > 0 AND NOT attisdropped
+            ORDER BY attnum
+            """;
+    private static final String MISSING_COLUMNS_SQL = """
+            SELECT a.attname AS name, format_type(a.atttypid, a.atttypmod) AS type
+            FROM pg_attribute a
+            WHERE a.attrelid = CAST(? AS regclass) AND a.attnum > 0 AND NOT a.attisdropped
+              AND NOT EXISTS (SELECT 1 FROM pg_attribute b
+                              WHERE b.attrelid = CAST(? AS regclass) AND b.attname = a.attname AND NOT b.attisdropped)
+            ORDER BY a.attnum
+            """;
+    private static final String PARTITION_DDL =
+            "CREATE TABLE IF NOT EXISTS %1$s_y%2$tYm%2$tm PARTITION OF %1$s FOR VALUES FROM ('%2$tF') TO ('%3$tF')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Colunas das tabelas quentes, na ordem do banco, já entre aspas para os INSERT ... SELECT
+    @Getter
+    private String orderColumns;
+    @Getter
+    private String lineColumns;
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String ddl : DDL) {
+            jdbcTemplate.execute(ddl);
+        }
+        addMissingColumns("orders", "orders_archive");
+        addMissingColumns("order_products", "order_products_archive");
+        orderColumns = columns("orders");
+        lineColumns = columns("order_products");
+    }
+
+    // Uma partição por mês (primeiro dia do mês) em cada tabela de arquivo
+    public void createPartitions(Collection<LocalDate> months) {
+        for (LocalDate month : months) {
+            LocalDate next = month.plusMonths(1);
+            jdbcTemplate.execute(PARTITION_DDL.formatted("orders_archive", month, next));
+            jdbcTemplate.execute(PARTITION_DDL.formatted("order_products_archive", month, next));
+        }
+    }
+
+    private void addMissingColumns(String table, String archive) {
+        List<String> additions = jdbcTemplate.query(MISSING_COLUMNS_SQL,
+                (rs, i) -> "ADD COLUMN IF NOT EXISTS \"" + rs.getString("name") + "\" " + rs.getString("type"),
+                table, archive);
+        if (!additions.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE " + archive + " " + String.join(", ", additions));
+        }
+    }
+
+    private String columns(String table) {
+        List<String> names = jdbcTemplate.queryForList(COLUMNS_SQL, String.class, table);
+        return names.stream().map(name -> "\"" + name + "\"").collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,346 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.embeddable.CustomerDetails;
+import br.com.system.usegm.domain.order.embeddable.ShippingDetails;
+import br.com.system.usegm.domain.order.embeddable.ShippingTypeEnum;
+import br.com.system.usegm.domain.order.projection.OrderLineRow;
+import br.com.system.usegm.domain.order.projection.OrderListRow;
+import br.com.system.usegm.domain.product.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Arquivamento dos pedidos finalizados ({@code api.orders.archive.statuses}) criados há mais de
+ * {@code older-than}. Em lotes, linhas e pedidos saem das tabelas quentes e entram nas partições
+ * mensais do arquivo ({@link OrderArchiveSchema}) no mesmo comando, com {@code DELETE ... RETURNING}
+ * dentro do INSERT, então um pedido nunca fica nos dois lugares nem em nenhum. A listagem padrão
+ * só lê as tabelas quentes; com {@code includeArchived} a listagem, o cursor e a exportação
+ * também leem o arquivo, e a busca por id recorre a ele quando o pedido não está nas tabelas
+ * quentes. Pedidos arquivados são somente leitura (alterá-los dá 409) e continuam contados nos
+ * resumos. Desligado por padrão ({@code api.orders.archive.enabled}).
+ */
+@Slf4j
+@Service
+public class OrderArchiveService implements InitializingBean, DisposableBean {
+
+    // SKIP LOCKED: um pedido sendo editado agora fica para a próxima rodada
+    private static final String CANDIDATES_SQL = """
+            SELECT id, created_at FROM orders
+            WHERE status = ANY (?) AND created_at < ?
+            ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED
+            """;
+    private static final String MOVE_LINES_SQL = """
+            WITH moved AS (
+                DELETE FROM order_products op USING orders o
+                WHERE o.id = op.order_id AND o.id = ANY (?)
+                RETURNING op.*, o.created_at
+            )
+            INSERT INTO order_products_archive (%1$s, created_at) SELECT %1$s, created_at FROM moved
+            """;
+    private static final String MOVE_ORDERS_SQL = """
+            WITH moved AS (DELETE FROM orders WHERE id = ANY (?) RETURNING %1$s)
+            INSERT INTO orders_archive (%1$s) SELECT %1$s FROM moved
+            """;
+
+    private static final String LIST_COLUMNS = "id, name, email, phone, type, delivery_address, street, number, neighborhood, " +
+            "city, state, delivery_date, excursion_name, seat_number, sector, transporter_name, status, created_at, observations";
+    private static final String STATUS_FILTER = "(CAST(? AS varchar) IS NULL OR status = CAST(? AS varchar))";
+    // Cada lado traz só o necessário para a página; o arquivo é lido pelo índice (created_at, id) de cada partição
+    private static final String LIST_SQL = """
+            SELECT * FROM (
+                (SELECT %1$s FROM orders WHERE %2$s ORDER BY created_at DESC, id DESC LIMIT ?)
+                UNION ALL
+                (SELECT %1$s FROM orders_archive WHERE %2$s ORDER BY created_at DESC, id DESC LIMIT ?)
+            ) o ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?
+            """.formatted(LIST_COLUMNS, STATUS_FILTER);
+    private static final String COUNT_SQL = """
+            SELECT (SELECT count(*) FROM orders WHERE %1$s) + (SELECT count(*) FROM orders_archive WHERE %1$s)
+            """.formatted(STATUS_FILTER);
+    // Keyset sobre as duas tabelas: cada lado lê só a página a partir da posição, pelo índice (created_at, id)
+    private static final String CURSOR_SQL = """
+            SELECT * FROM (
+                (SELECT %1$s FROM orders WHERE %2$s%3$s ORDER BY created_at DESC, id DESC LIMIT ?)
+                UNION ALL
+                (SELECT %1$s FROM orders_archive WHERE %2$s%3$s ORDER BY created_at DESC, id DESC LIMIT ?)
+            ) o ORDER BY created_at DESC, id DESC LIMIT ?
+            """;
+    private static final String AFTER_FILTER = " AND (created_at, id) < (?, ?)";
+    private static final String ORDER_SQL = "SELECT %s FROM orders_archive WHERE id = ?".formatted(LIST_COLUMNS);
+    private static final String ORDER_LINES_SQL = "SELECT id, product_id, quantity FROM order_products_archive WHERE order_id = ? ORDER BY id";
+    private static final String VERSION_SQL = "SELECT version FROM orders_archive WHERE id = ?";
+    // As linhas levam a data do pedido: a igualdade em created_at restringe a junção à mesma partição
+    private static final String EXPORT_SQL = """
+            SELECT o.*, l.id AS line_id, l.product_id, l.quantity
+            FROM (SELECT %s FROM orders_archive WHERE 1 = 1%s) o
+            LEFT JOIN order_products_archive l ON l.order_id = o.id AND l.created_at = o.created_at
+            ORDER BY o.created_at, o.id, l.id
+            """;
+    private static final String LINES_SQL = """
+            SELECT order_id, product_id, quantity FROM (
+                SELECT id, order_id, product_id, quantity FROM order_products WHERE order_id = ANY (?)
+                UNION ALL
+                SELECT id, order_id, product_id, quantity FROM order_products_archive WHERE order_id = ANY (?)
+            ) l ORDER BY id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderArchiveSchema schema;
+    private final boolean enabled;
+    private final String[] statuses;
+    private final Duration olderThan;
+    private final Duration interval;
+    private final int chunkSize;
+    private ScheduledExecutorService archiver;
+
+    public OrderArchiveService(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               OrderArchiveSchema schema,
+                               @Value("${api.orders.archive.enabled:false}") boolean enabled,
+                               @Value("${api.orders.archive.statuses:COMPLETO}") List<OrderStatusEnum> statuses,
+                               @Value("${api.orders.archive.older-than:180d}") Duration olderThan,
+                               @Value("${api.orders.archive.interval:1h}") Duration interval,
+                               @Value("${api.orders.archive.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.schema = schema;
+        this.enabled = enabled;
+        this.statuses = statuses.stream().map(Enum::name).toArray(String[]::new);
+        this.olderThan = olderThan;
+        this.interval = interval;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled || statuses.length == 0) return;
+        archiver = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("order-archive-"));
+        archiver.scheduleWithFixedDelay(this::archiveQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (archiver != null) archiver.shutdownNow();
+    }
+
+    /**
+     * Move para o arquivo, em transações de até {@code chunk-size} pedidos, todos os pedidos
+     * finalizados mais velhos que o limite. Devolve quantos foram arquivados.
+     */
+    public int archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(olderThan);
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            total += moved;
+        } while (moved == chunkSize);
+        if (total > 0) {
+            log.info("Archived {} finished orders created before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<Long> ids = new ArrayList<>();
+        Set<LocalDate> months = new TreeSet<>();
+        jdbcTemplate.query(CANDIDATES_SQL, rs -> {
+            ids.add(rs.getLong("id"));
+            months.add(rs.getTimestamp("created_at").toLocalDateTime().toLocalDate().withDayOfMonth(1));
+        }, statuses, Timestamp.valueOf(cutoff), chunkSize);
+        if (ids.isEmpty()) return 0;
+
+        schema.createPartitions(months);
+        Long[] orderIds = ids.toArray(Long[]::new);
+        jdbcTemplate.update(MOVE_LINES_SQL.formatted(schema.getLineColumns()), (Object) orderIds);
+        return jdbcTemplate.update(MOVE_ORDERS_SQL.formatted(schema.getOrderColumns()), (Object) orderIds);
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (Exception e) {
+            log.warn("Error while archiving finished orders", e);
+        }
+    }
+
+    /**
+     * Página da listagem sobre as tabelas quentes e o arquivo juntos, sempre do mais novo para o
+     * mais velho (a ordenação do {@link Pageable} não se aplica aqui). Cada tabela lê
+     * {@code offset + size} linhas, então páginas profundas custam proporcionalmente ao offset;
+     * para percorrer o histórico inteiro use {@link #findCursorRows}.
+     */
+    public Page<OrderListRow> findListRows(OrderStatusEnum status, Pageable pageable) {
+        String name = status == null ? null : status.name();
+        int window = (int) pageable.getOffset() + pageable.getPageSize();
+        List<OrderListRow> rows = jdbcTemplate.query(LIST_SQL, (rs, i) -> toListRow(rs),
+                name, name, window, name, name, window, pageable.getPageSize(), pageable.getOffset());
+        Long total = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, name, name, name, name);
+        return new PageImpl<>(rows, pageable, total == null ? 0 : total);
+    }
+
+    /**
+     * Página por cursor ({@code (createdAt, id)} decrescente) sobre as tabelas quentes e o arquivo;
+     * sem {@code after} começa do pedido mais novo. Custo constante em qualquer profundidade.
+     */
+    public List<OrderListRow> findCursorRows(OrderStatusEnum status, OrderCursor after, int limit) {
+        String name = status == null ? null : status.name();
+        List<Object> sideArgs = new ArrayList<>();
+        sideArgs.add(name);
+        sideArgs.add(name);
+        if (after != null) {
+            sideArgs.add(Timestamp.valueOf(after.getCreatedAt()));
+            sideArgs.add(after.getId());
+        }
+        sideArgs.add(limit);
+
+        List<Object> args = new ArrayList<>(sideArgs);
+        args.addAll(sideArgs);
+        args.add(limit);
+        String sql = CURSOR_SQL.formatted(LIST_COLUMNS, STATUS_FILTER, after == null ? "" : AFTER_FILTER);
+        return jdbcTemplate.query(sql, (rs, i) -> toListRow(rs), args.toArray());
+    }
+
+    // Pedido arquivado como entidade transiente (nunca gerenciada), com as linhas e só o id do produto
+    public Optional<Order> findOrder(Long id) {
+        List<Order> orders = jdbcTemplate.query(ORDER_SQL, (rs, i) -> toOrder(toListRow(rs)), id);
+        if (orders.isEmpty()) return Optional.empty();
+
+        Order order = orders.getFirst();
+        jdbcTemplate.query(ORDER_LINES_SQL, rs -> {
+            addLine(order, rs.getLong("id"), rs.getLong("product_id"), rs.getInt("quantity"));
+        }, id);
+        return Optional.of(order);
+    }
+
+    public Optional<Long> findVersion(Long id) {
+        return jdbcTemplate.queryForList(VERSION_SQL, Long.class, id).stream().findFirst();
+    }
+
+    /**
+     * Percorre os pedidos arquivados do filtro em ordem de {@code createdAt}, lidos por cursor do
+     * PostgreSQL com {@code fetchSize} linhas por ida (precisa da transação do chamador). Cada
+     * pedido chega ao {@code handler} já com todas as linhas, como entidade transiente.
+     */
+    public void forEachOrder(OrderStatusEnum status, LocalDateTime from, LocalDateTime to, int fetchSize, Consumer<Order> handler) {
+        StringBuilder filters = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        if (status != null) {
+            filters.append(" AND status = ?");
+            args.add(status.name());
+        }
+        if (from != null) {
+            filters.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            filters.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+
+        String sql = EXPORT_SQL.formatted(LIST_COLUMNS, filters);
+        Order[] current = new Order[1];
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, rs -> {
+            long id = rs.getLong("id");
+            if (current[0] == null || !current[0].getId().equals(id)) {
+                if (current[0] != null) handler.accept(current[0]);
+                current[0] = toOrder(toListRow(rs));
+            }
+            long lineId = rs.getLong("line_id");
+            if (!rs.wasNull()) {
+                addLine(current[0], lineId, rs.getLong("product_id"), rs.getInt("quantity"));
+            }
+        });
+        if (current[0] != null) handler.accept(current[0]);
+    }
+
+    public List<OrderLineRow> findLineRows(List<Long> orderIds) {
+        Long[] ids = orderIds.toArray(Long[]::new);
+        return jdbcTemplate.query(LINES_SQL,
+                (rs, i) -> new OrderLineRow(rs.getLong("order_id"), rs.getLong("product_id"), rs.getInt("quantity")),
+                ids, ids);
+    }
+
+    private static Order toOrder(OrderListRow row) {
+        Order order = new Order();
+        order.setId(row.id());
+        order.setCustomerDetails(row.customerDetails());
+        order.setShippingDetails(row.shippingDetails());
+        order.setStatus(row.status());
+        order.setCreatedAt(row.createdAt());
+        order.setObservations(row.observations());
+        return order;
+    }
+
+    private static void addLine(Order order, long lineId, long productId, int quantity) {
+        Product product = new Product();
+        product.setId(productId);
+        OrderProduct line = new OrderProduct();
+        line.setId(lineId);
+        line.setOrder(order);
+        line.setProduct(product);
+        line.setQuantity(quantity);
+        order.getOrderProducts().add(line);
+    }
+
+    private static OrderListRow toListRow(ResultSet rs) throws SQLException {
+        CustomerDetails customer = new CustomerDetails(rs.getString("name"), rs.getString("email"), rs.getString("phone"));
+        String type = rs.getString("type");
+        Date deliveryDate = rs.getDate("delivery_date");
+        ShippingDetails shipping = new ShippingDetails(
+                type == null ? null : ShippingTypeEnum.valueOf(type),
+                rs.getString("delivery_address"),
+                rs.getString("street"),
+                rs.getString("number"),
+                rs.getString("neighborhood"),
+                rs.getString("city"),
+                rs.getString("state"),
+                deliveryDate == null ? null : deliveryDate.toLocalDate(),
+                rs.getString("excursion_name"),
+                rs.getString("seat_number"),
+                rs.getString("sector"),
+                rs.getString("transporter_name"));
+        String status = rs.getString("status");
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new OrderListRow(
+                rs.getLong("id"),
+                customer,
+                shipping,
+                status == null ? null : OrderStatusEnum.valueOf(status),
+                createdAt == null ? null : createdAt.toLocalDateTime(),
+                rs.getString("observations"));
+    }
+}
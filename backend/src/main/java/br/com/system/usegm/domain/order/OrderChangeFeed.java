@@ -0,0 +1,208 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.dto.OrderChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Feed SSE de mudanças de pedidos para os quadros do frontend, no lugar do polling da listagem.
+ * As conexões são requisições assíncronas (nenhuma thread presa por cliente). Cada assinante tem
+ * uma fila limitada, esvaziada por uma thread virtual só enquanto houver eventos; um cliente lento
+ * que estoura a fila é desconectado e retoma pelo {@code Last-Event-ID}. Os eventos são publicados
+ * depois do commit e os últimos ficam num buffer para essa retomada; quem pede um id que já saiu
+ * do buffer recebe {@code reset} e deve recarregar a listagem.
+ */
+@Slf4j
+@Component
+public class OrderChangeFeed implements DisposableBean {
+
+    private final int replaySize;
+    private final int queueCapacity;
+    private final Duration timeout;
+    private final Deque<OrderChangeEvent> replay = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-feed-", 0).factory());
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("order-feed-heartbeat-"));
+    // Ordena numeração, buffer e entrada de assinantes; ReentrantLock não prende threads virtuais ao carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    // Ids crescentes também entre reinícios, para um Last-Event-ID antigo nunca parecer atual
+    private long sequence = System.currentTimeMillis() * 1000;
+
+    public OrderChangeFeed(@Value("${api.orders.events.replay-size:1000}") int replaySize,
+                           @Value("${api.orders.events.queue-capacity:256}") int queueCapacity,
+                           @Value("${api.orders.events.timeout:30m}") Duration timeout,
+                           @Value("${api.orders.events.heartbeat:15s}") Duration heartbeat) {
+        this.replaySize = replaySize;
+        this.queueCapacity = queueCapacity;
+        this.timeout = timeout;
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Publica a mudança quando a transação atual for confirmada (ou na hora, fora de transação).
+     */
+    public void publish(OrderChangeType type, Long orderId, OrderStatusEnum status, OrderStatusEnum previousStatus) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(type, orderId, status, previousStatus);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(type, orderId, status, previousStatus);
+            }
+        });
+    }
+
+    /**
+     * Nova conexão, opcionalmente só com pedidos que entram ou saem de {@code status}. Com
+     * {@code lastEventId} os eventos perdidos são reenviados antes dos novos.
+     */
+    public SseEmitter subscribe(OrderStatusEnum status, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, status);
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.remove());
+
+        lock.lock();
+        try {
+            subscriber.offer(SseEmitter.event().comment("connected").build());
+            if (lastEventId != null) replayTo(subscriber, lastEventId);
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+        return emitter;
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+        senders.shutdownNow();
+    }
+
+    private void dispatch(OrderChangeType type, Long orderId, OrderStatusEnum status, OrderStatusEnum previousStatus) {
+        lock.lock();
+        try {
+            OrderChangeEvent event = new OrderChangeEvent(++sequence, type, orderId, status, previousStatus, LocalDateTime.now());
+            replay.addLast(event);
+            if (replay.size() > replaySize) replay.removeFirst();
+
+            Set<ResponseBodyEmitter.DataWithMediaType> data = toSse(event);
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(event)) subscriber.offer(data);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void replayTo(Subscriber subscriber, long lastEventId) {
+        OrderChangeEvent oldest = replay.peekFirst();
+        boolean missed = lastEventId > sequence
+                || (oldest == null ? lastEventId != sequence : lastEventId < oldest.getId() - 1);
+        if (missed) {
+            subscriber.offer(SseEmitter.event().name("reset").data("{}").build());
+            return;
+        }
+        for (OrderChangeEvent event : replay) {
+            if (event.getId() > lastEventId && subscriber.accepts(event)) subscriber.offer(toSse(event));
+        }
+    }
+
+    private void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> data = SseEmitter.event().comment("heartbeat").build();
+        subscribers.forEach(subscriber -> subscriber.offer(data));
+    }
+
+    // Montado uma vez por evento e compartilhado entre os assinantes
+    private static Set<ResponseBodyEmitter.DataWithMediaType> toSse(OrderChangeEvent event) {
+        return SseEmitter.event()
+                .id(Long.toString(event.getId()))
+                .name(event.getType().getEventName())
+                .data(event, MediaType.APPLICATION_JSON)
+                .build();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final OrderStatusEnum status;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, OrderStatusEnum status) {
+            this.emitter = emitter;
+            this.status = status;
+        }
+
+        // Quem filtra por status também recebe os pedidos que saíram dele
+        private boolean accepts(OrderChangeEvent event) {
+            return status == null || status == event.getStatus() || status == event.getPreviousStatus();
+        }
+
+        private void offer(Set<ResponseBodyEmitter.DataWithMediaType> data) {
+            if (closed) return;
+            if (!queue.offer(data)) {
+                log.debug("Order feed subscriber too slow, closing connection");
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    Set<ResponseBodyEmitter.DataWithMediaType> data;
+                    while ((data = queue.poll()) != null) {
+                        emitter.send(data);
+                    }
+                    draining.set(false);
+                    // Um offer pode ter chegado entre o último poll e a liberação da flag
+                } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+            } catch (Exception e) {
+                draining.set(false);
+                remove();
+            }
+        }
+
+        private void close() {
+            remove();
+            emitter.complete();
+        }
+
+        private void remove() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.system.usegm.domain.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum OrderChangeType {
+    CREATED("order-created"),
+    STATUS_CHANGED("order-status-changed"),
+    UPDATED("order-updated"),
+    DELETED("order-deleted");
+
+    // Nome do evento SSE
+    private final String eventName;
+}
@@ -1,16 +1,33 @@
 package br.com.system.usegm.domain.order;
 
+import br.com.system.usegm.domain.order.dto.BulkStatusRequest;
+import br.com.system.usegm.domain.order.dto.BulkStatusResponse;
+import br.com.system.usegm.domain.order.dto.OrderCursorPage;
 import br.com.system.usegm.domain.order.dto.OrderRequest;
 import br.com.system.usegm.domain.order.dto.OrderResponse;
 import br.com.system.usegm.domain.order.dto.PatchStatusDTO;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/v1/orders")
@@ -18,17 +35,65 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final BulkOrderStatusService bulkOrderStatusService;
+    private final OrderExportService orderExportService;
+    private final OrderChangeFeed orderChangeFeed;
+    private final OrderIntakeService orderIntakeService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public ResponseEntity<Page<OrderResponse>> getAllOrders(@RequestParam(required = false) OrderStatusEnum status, @RequestParam(required = false, defaultValue = "false") boolean all, Pageable pageable) {
-        Page<OrderResponse> orders = orderService.getAllOrders(status, pageable, all);
+    public ResponseEntity<Page<OrderResponse>> getAllOrders(@RequestParam(required = false) OrderStatusEnum status, @RequestParam(required = false, defaultValue = "false") boolean all, @RequestParam(required = false, defaultValue = "false") boolean includeArchived, Pageable pageable, ServletWebRequest webRequest) {
+        if (webRequest.checkNotModified(orderService.getOrdersTag(status, all, includeArchived, pageable))) return null;
+        Page<OrderResponse> orders = orderService.getAllOrders(status, pageable, all, includeArchived);
         return ResponseEntity.ok(orders);
     }
 
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public ResponseEntity<OrderCursorPage> getOrdersByCursor(@RequestParam(required = false) OrderStatusEnum status, @RequestParam(required = false) String cursor, @RequestParam(required = false, defaultValue = "20") int size, @RequestParam(required = false, defaultValue = "false") boolean includeArchived) {
+        OrderCursorPage orders = orderService.getOrdersByCursor(status, cursor, size, includeArchived);
+        return ResponseEntity.ok(orders);
+    }
+
+    /**
+     * Exporta os pedidos com suas linhas (CSV, uma linha por item, ou NDJSON, um pedido por linha)
+     * em streaming. {@code from} é inclusivo e {@code to} exclusivo, ambos sobre createdAt; com
+     * {@code includeArchived} os pedidos arquivados também entram.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public void exportOrders(@RequestParam(defaultValue = "CSV") OrderExportFormat format,
+                             @RequestParam(required = false) OrderStatusEnum status,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                             @RequestParam(required = false, defaultValue = "false") boolean includeArchived,
+                             HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("orders." + format.getExtension())
+                .build()
+                .toString());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 64 * 1024);
+        orderExportService.export(format, status, from, to, includeArchived, writer);
+    }
+
+    /**
+     * Eventos de criação, mudança de status, edição e exclusão de pedidos (SSE), opcionalmente só
+     * dos que entram ou saem de {@code status}. O cliente retoma de onde parou com {@code Last-Event-ID}.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public SseEmitter streamOrderEvents(@RequestParam(required = false) OrderStatusEnum status,
+                                        @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return orderChangeFeed.subscribe(status, lastEventId);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id, ServletWebRequest webRequest) {
+        // Versão lida antes do pedido: se ele mudar no meio, a ETag fica mais velha que o corpo, nunca o contrário
+        if (webRequest.checkNotModified(orderService.getOrderTag(id))) return null;
         OrderResponse order = orderService.getOrderById(id);
         return ResponseEntity.ok(order);
     }
@@ -36,7 +101,7 @@ public class OrderController {
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
     public ResponseEntity<OrderResponse> createOrder(@RequestBody @Valid OrderRequest orderRequest) {
-        OrderResponse createdOrder = orderService.createOrder(orderRequest);
+        OrderResponse createdOrder = orderIntakeService.createOrder(orderRequest);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
     }
 
@@ -54,6 +119,13 @@ public class OrderController {
         return ResponseEntity.noContent().build();
     }
 
+    @PatchMapping("/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public ResponseEntity<BulkStatusResponse> updateOrdersStatus(@RequestBody @Valid BulkStatusRequest request) {
+        BulkStatusResponse result = bulkOrderStatusService.updateStatus(request);
+        return ResponseEntity.ok(result);
+    }
+
     @PatchMapping("/{id}/status")
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
     public ResponseEntity<OrderResponse> updateOrderStatus(@PathVariable Long id, @RequestBody PatchStatusDTO status) {
@@ -0,0 +1,201 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.embeddable.CustomerDetails;
+import br.com.system.usegm.domain.order.embeddable.ShippingDetails;
+import br.com.system.usegm.domain.product.CatalogProduct;
+import br.com.system.usegm.domain.product.ProductCatalogCache;
+import br.com.system.usegm.domain.product.ProductImageService;
+import br.com.system.usegm.domain.product.dto.ProductResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Exportação de pedidos com suas linhas em CSV ou NDJSON, escrita direto na saída da resposta.
+ * Os pedidos são lidos por um cursor forward-only do PostgreSQL (exige transação, daí o
+ * {@code readOnly}) com fetch size fixo, e cada pedido é desanexado da sessão assim que é
+ * escrito. O uso de memória não depende do período exportado. Com {@code includeArchived} os
+ * pedidos arquivados vêm primeiro, lidos da mesma forma por {@link OrderArchiveService}; cada
+ * parte sai em ordem de {@code createdAt}.
+ */
+@Service
+public class OrderExportService {
+
+    private static final String CSV_HEADER = "order_id,created_at,status,customer_name,customer_email,customer_phone," +
+            "shipping_type,delivery_date,observations,line_id,product_id,product_reference,product_name,quantity";
+
+    private final EntityManager entityManager;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductImageService productImageService;
+    private final OrderMapper orderMapper;
+    private final OrderArchiveService orderArchiveService;
+    private final ObjectWriter jsonWriter;
+    private final int fetchSize;
+
+    public OrderExportService(EntityManager entityManager,
+                              ProductCatalogCache productCatalogCache,
+                              ProductImageService productImageService,
+                              OrderMapper orderMapper,
+                              OrderArchiveService orderArchiveService,
+                              ObjectMapper objectMapper,
+                              @Value("${api.orders.export.fetch-size:500}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.productCatalogCache = productCatalogCache;
+        this.productImageService = productImageService;
+        this.orderMapper = orderMapper;
+        this.orderArchiveService = orderArchiveService;
+        this.jsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.fetchSize = fetchSize;
+    }
+
+    @Transactional(readOnly = true)
+    public long export(OrderExportFormat format, OrderStatusEnum status, LocalDateTime from, LocalDateTime to,
+                       boolean includeArchived, Writer writer) throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+        Query<Order> query = buildQuery(session, status, from, to);
+
+        if (format == OrderExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long exported = 0;
+        if (includeArchived) {
+            exported += exportArchived(format, status, from, to, writer);
+        }
+        try (ScrollableResults<Order> orders = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (orders.next()) {
+                Order order = orders.get();
+                write(format, order, writer);
+                detach(session, order);
+                exported++;
+            }
+        }
+        writer.flush();
+        return exported;
+    }
+
+    private long exportArchived(OrderExportFormat format, OrderStatusEnum status, LocalDateTime from, LocalDateTime to, Writer writer) throws IOException {
+        long[] exported = new long[1];
+        try {
+            orderArchiveService.forEachOrder(status, from, to, fetchSize, order -> {
+                try {
+                    write(format, order, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return exported[0];
+    }
+
+    private void write(OrderExportFormat format, Order order, Writer writer) throws IOException {
+        if (format == OrderExportFormat.CSV) {
+            writeCsv(order, writer);
+        } else {
+            writeJson(order, writer);
+        }
+    }
+
+    private Query<Order> buildQuery(Session session, OrderStatusEnum status, LocalDateTime from, LocalDateTime to) {
+        // Filtros montados só com o que foi informado, para o plano usar os índices de (status, createdAt, id)
+        StringBuilder hql = new StringBuilder("SELECT o FROM Order o LEFT JOIN FETCH o.orderProducts op WHERE 1 = 1");
+        if (status != null) hql.append(" AND o.status = :status");
+        if (from != null) hql.append(" AND o.createdAt >= :from");
+        if (to != null) hql.append(" AND o.createdAt < :to");
+        hql.append(" ORDER BY o.createdAt, o.id, op.id");
+
+        Query<Order> query = session.createQuery(hql.toString(), Order.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true);
+        if (status != null) query.setParameter("status", status);
+        if (from != null) query.setParameter("from", from);
+        if (to != null) query.setParameter("to", to);
+        return query;
+    }
+
+    // Remove da sessão o pedido, as linhas (cascade) e os proxies de produto criados para elas
+    private void detach(Session session, Order order) {
+        List<Object> products = new ArrayList<>(order.getOrderProducts().size());
+        order.getOrderProducts().forEach(line -> products.add(line.getProduct()));
+        session.detach(order);
+        products.forEach(session::detach);
+    }
+
+    private void writeJson(Order order, Writer writer) throws IOException {
+        Map<Long, CatalogProduct> catalog = catalog(order);
+        List<ProductResponse> products = new ArrayList<>(order.getOrderProducts().size());
+        for (OrderProduct line : order.getOrderProducts()) {
+            CatalogProduct product = catalog.get(line.getProduct().getId());
+            products.add(product == null
+                    ? new ProductResponse(line.getProduct().getId(), null, null, line.getQuantity(), null)
+                    : new ProductResponse(product.getId(), product.getName(), product.getReference(),
+                    line.getQuantity(), productImageService.imageUrl(product)));
+        }
+        jsonWriter.writeValue(writer, orderMapper.toResponse(order, products));
+        writer.write('\n');
+    }
+
+    private void writeCsv(Order order, Writer writer) throws IOException {
+        CustomerDetails customer = Objects.requireNonNullElseGet(order.getCustomerDetails(), CustomerDetails::new);
+        ShippingDetails shipping = Objects.requireNonNullElseGet(order.getShippingDetails(), ShippingDetails::new);
+        String orderColumns = String.join(",",
+                csv(order.getId()), csv(order.getCreatedAt()), csv(order.getStatus()),
+                csv(customer.getName()), csv(customer.getEmail()), csv(customer.getPhone()),
+                csv(shipping.getType()), csv(shipping.getDeliveryDate()), csv(order.getObservations()));
+
+        if (order.getOrderProducts().isEmpty()) {
+            writer.write(orderColumns);
+            writer.write(",,,,,\n");
+            return;
+        }
+
+        Map<Long, CatalogProduct> catalog = catalog(order);
+        for (OrderProduct line : order.getOrderProducts()) {
+            CatalogProduct product = catalog.get(line.getProduct().getId());
+            writer.write(orderColumns);
+            writer.write(',');
+            writer.write(String.join(",",
+                    csv(line.getId()), csv(line.getProduct().getId()),
+                    csv(product == null ? null : product.getReference()),
+                    csv(product == null ? null : product.getName()),
+                    csv(line.getQuantity())));
+            writer.write('\n');
+        }
+    }
+
+    private Map<Long, CatalogProduct> catalog(Order order) {
+        return productCatalogCache.getAll(order.getOrderProducts().stream()
+                .map(line -> line.getProduct().getId())
+                .toList());
+    }
+
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.system.usegm.domain.order;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pedidos e linhas eram gerados por IDENTITY. Assim como em {@code ProductIdSequence}, as
+ * sequências criadas pelo {@code ddl-auto} são adiantadas para além do maior id existente antes
+ * de qualquer INSERT.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class OrderIdSequence implements InitializingBean {
+
+    private static final String ALIGN_SQL = """
+            SELECT setval('%1$s_seq', greatest(
+                (SELECT coalesce(max(id), 1) FROM %1$s),
+                (SELECT last_value FROM %1$s_seq)))
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String table : new String[]{"orders", "order_products"}) {
+            jdbcTemplate.queryForObject(ALIGN_SQL.formatted(table), Long.class);
+        }
+    }
+}
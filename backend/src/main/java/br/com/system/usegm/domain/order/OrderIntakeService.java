@@ -0,0 +1,239 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.dto.OrderRequest;
+import br.com.system.usegm.domain.order.dto.OrderResponse;
+import br.com.system.usegm.domain.order.dto.ProductOrderRequest;
+import br.com.system.usegm.domain.summary.OrderSummaryService;
+import br.com.system.usegm.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Entrada de pedidos com commit em grupo para picos de venda ({@code api.orders.intake.enabled}).
+ * As requisições entram em uma fila limitada e uma única thread grava lotes de até
+ * {@code batch-size} pedidos, esperando no máximo {@code window} pelo lote encher. Cada lote é
+ * uma transação: saldo travado e lido uma vez para todos, baixas em um batch de UPDATEs e
+ * pedidos e linhas inseridos em batch JDBC. Quem chamou continua esperando a própria resposta
+ * ou o próprio erro (404, 409), que só é entregue depois do commit. Se o lote inteiro falhar
+ * (erro de banco, não de um pedido), os pedidos são refeitos um a um pelo caminho normal.
+ * Com a fila cheia a requisição é recusada com 503, e quem espera mais que {@code timeout} (thread
+ * de gravação parada ou travada) também: se o pedido ainda não tinha entrado em um lote ele é
+ * descartado, senão a resposta avisa que ele pode ter sido gravado. Desligado, cada pedido segue
+ * direto para {@link OrderService#createOrder}.
+ */
+@Slf4j
+@Service
+public class OrderIntakeService implements InitializingBean, DisposableBean {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final StockReservationService stockReservationService;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderChangeFeed orderChangeFeed;
+    private final OrderMapper orderMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration window;
+    private final Duration timeout;
+    private final BlockingQueue<PendingOrder> queue;
+    private final DistributionSummary batchSizes;
+    private Thread writer;
+    private volatile boolean stopped;
+    // Lote em gravação, para ser encerrado no shutdown se a thread não terminar a tempo
+    private volatile List<PendingOrder> inFlight = List.of();
+
+    public OrderIntakeService(OrderService orderService,
+                              OrderRepository orderRepository,
+                              StockReservationService stockReservationService,
+                              OrderSummaryService orderSummaryService,
+                              OrderChangeFeed orderChangeFeed,
+                              OrderMapper orderMapper,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${api.orders.intake.enabled:false}") boolean enabled,
+                              @Value("${api.orders.intake.batch-size:50}") int batchSize,
+                              @Value("${api.orders.intake.window:5ms}") Duration window,
+                              @Value("${api.orders.intake.timeout:10s}") Duration timeout,
+                              @Value("${api.orders.intake.queue-capacity:2000}") int queueCapacity) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.stockReservationService = stockReservationService;
+        this.orderSummaryService = orderSummaryService;
+        this.orderChangeFeed = orderChangeFeed;
+        this.orderMapper = orderMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.window = window;
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.batchSizes = DistributionSummary.builder("usegm.orders.intake.batch.size").register(meterRegistry);
+        meterRegistry.gauge("usegm.orders.intake.queue.depth", queue, BlockingQueue::size);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) return;
+        writer = new CustomizableThreadFactory("order-intake-").newThread(this::run);
+        writer.start();
+        log.info("Order group commit enabled: batches of up to {} orders within {}", batchSize, window);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        stopped = true;
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        ServiceUnavailableException stop = new ServiceUnavailableException("Order intake stopped, try again");
+        inFlight.forEach(pending -> pending.result.completeExceptionally(stop));
+        PendingOrder pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(stop);
+        }
+    }
+
+    public OrderResponse createOrder(OrderRequest orderRequest) {
+        if (!enabled) {
+            return orderService.createOrder(orderRequest);
+        }
+        if (stopped) {
+            throw new ServiceUnavailableException("Order intake stopped, try again");
+        }
+        PendingOrder pending = new PendingOrder(orderRequest);
+        if (!queue.offer(pending)) {
+            throw new ServiceUnavailableException("Order intake busy, try again");
+        }
+
+        try {
+            return pending.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Quem ganha a flag decide: a thread de gravação só grava pedidos que ela mesma pegou
+            if (pending.claimed.compareAndSet(false, true)) {
+                throw new ServiceUnavailableException("Order intake timed out, try again");
+            }
+            throw new ServiceUnavailableException("Order intake timed out, the order may have been created");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Order intake interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void run() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                // O lote fecha ao encher ou quando a janela contada a partir do primeiro pedido acaba
+                long deadline = System.nanoTime() + window.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() == batchSize || remaining <= 0) break;
+                    PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Pedidos cujo cliente já desistiu por timeout ficam de fora
+            batch.removeIf(pending -> !pending.claimed.compareAndSet(false, true));
+            if (!batch.isEmpty()) {
+                inFlight = List.copyOf(batch);
+                write(batch);
+                inFlight = List.of();
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingOrder> batch) {
+        batchSizes.record(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(batch));
+        } catch (RuntimeException e) {
+            log.warn("Order batch of {} failed, creating its orders one by one", batch.size(), e);
+            batch.forEach(this::createAlone);
+            return;
+        }
+        batch.forEach(PendingOrder::complete);
+    }
+
+    private void writeBatch(List<PendingOrder> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        List<List<ProductOrderRequest>> items = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            orders.add(orderService.buildNewOrder(pending.request));
+            items.add(pending.request.getProducts());
+        }
+
+        List<RuntimeException> failures = stockReservationService.reserveAll(orders, items);
+        List<Order> accepted = new ArrayList<>(orders.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).failure = failures.get(i);
+            if (failures.get(i) == null) accepted.add(orders.get(i));
+        }
+        if (accepted.isEmpty()) return;
+
+        // Ids vêm das sequências já no persist; os INSERTs saem em batch no flush do commit
+        orderRepository.saveAll(accepted);
+        orderSummaryService.applyCreated(accepted.stream().map(orderSummaryService::snapshot).toList());
+        for (int i = 0; i < batch.size(); i++) {
+            if (failures.get(i) != null) continue;
+            Order order = orders.get(i);
+            orderChangeFeed.publish(OrderChangeType.CREATED, order.getId(), order.getStatus(), null);
+            batch.get(i).response = orderMapper.toResponse(order);
+        }
+    }
+
+    private void createAlone(PendingOrder pending) {
+        try {
+            pending.result.complete(orderService.createOrder(pending.request));
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingOrder {
+
+        private final OrderRequest request;
+        private final CompletableFuture<OrderResponse> result = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private OrderResponse response;
+        private RuntimeException failure;
+
+        private PendingOrder(OrderRequest request) {
+            this.request = request;
+        }
+
+        private void complete() {
+            if (failure != null) result.completeExceptionally(failure);
+            else result.complete(response);
+        }
+    }
+}
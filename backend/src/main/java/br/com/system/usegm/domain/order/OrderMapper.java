@@ -0,0 +1,77 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.dto.OrderResponse;
+import br.com.system.usegm.domain.order.projection.OrderListRow;
+import br.com.system.usegm.domain.product.dto.ProductResponse;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversão explícita de {@link Order} para {@link OrderResponse}, sem reflexão.
+ * Produz o mesmo JSON que o {@link ModelMapper}; com {@code api.mapping.use-model-mapper=true}
+ * volta a delegar para ele.
+ */
+@Component
+public class OrderMapper {
+
+    private final ModelMapper modelMapper;
+    private final boolean useModelMapper;
+
+    public OrderMapper(ModelMapper modelMapper, @Value("${api.mapping.use-model-mapper:false}") boolean useModelMapper) {
+        this.modelMapper = modelMapper;
+        this.useModelMapper = useModelMapper;
+    }
+
+    public OrderResponse toResponse(Order order) {
+        if (useModelMapper) {
+            return modelMapper.map(order, OrderResponse.class);
+        }
+        return toResponse(order, toLineResponses(order.getOrderProducts()));
+    }
+
+    public OrderResponse toResponse(Order order, List<ProductResponse> products) {
+        OrderResponse response;
+        if (useModelMapper) {
+            response = modelMapper.map(order, OrderResponse.class);
+        } else {
+            response = new OrderResponse();
+            response.setId(order.getId());
+            response.setCustomerDetails(order.getCustomerDetails());
+            response.setShippingDetails(order.getShippingDetails());
+            response.setStatus(order.getStatus());
+            response.setCreatedAt(order.getCreatedAt());
+            response.setObservations(order.getObservations());
+        }
+        response.setProducts(products);
+        return response;
+    }
+
+    public OrderResponse toResponse(OrderListRow row, List<ProductResponse> products) {
+        OrderResponse response = new OrderResponse();
+        response.setId(row.id());
+        response.setCustomerDetails(row.customerDetails());
+        response.setShippingDetails(row.shippingDetails());
+        response.setStatus(row.status());
+        response.setCreatedAt(row.createdAt());
+        response.setObservations(row.observations());
+        response.setProducts(products);
+        return response;
+    }
+
+    // Mesmo resultado do ModelMapper: apenas id e quantidade da linha, sem os dados do produto
+    private List<ProductResponse> toLineResponses(List<OrderProduct> orderProducts) {
+        if (orderProducts == null) return null;
+        List<ProductResponse> lines = new ArrayList<>(orderProducts.size());
+        for (OrderProduct orderProduct : orderProducts) {
+            ProductResponse line = new ProductResponse();
+            line.setId(orderProduct.getId());
+            line.setQuantity(orderProduct.getQuantity());
+            lines.add(line);
+        }
+        return lines;
+    }
+}
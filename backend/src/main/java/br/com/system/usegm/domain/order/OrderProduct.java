@@ -13,15 +13,18 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class OrderProduct {
 
+    // Sequência pooled, como em Product: com IDENTITY o Hibernate não agrupa os INSERTs em batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_products_seq")
+    @SequenceGenerator(name = "order_products_seq", sequenceName = "order_products_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
-    @ManyToOne
+    // Os dados de catálogo vêm do ProductCatalogCache; apenas o id é lido nas listagens
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
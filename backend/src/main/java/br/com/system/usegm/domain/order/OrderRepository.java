@@ -1,20 +1,94 @@
 package br.com.system.usegm.domain.order;
 
+import br.com.system.usegm.domain.order.projection.OrderLineRow;
+import br.com.system.usegm.domain.order.projection.OrderListRow;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderProducts op LEFT JOIN FETCH op.product " +
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderProducts op " +
             "WHERE (:status IS NULL OR o.status = :status) ORDER BY o.createdAt DESC")
     Page<Order> findAllByStatusWithItems(@Param("status") OrderStatusEnum status, Pageable pageable);
 
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderProducts op LEFT JOIN FETCH op.product " +
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderProducts op " +
             "ORDER BY o.createdAt DESC")
     Page<Order> findAllWithItems(Pageable pageable);
+
+    @Query("SELECT o.id FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findFirstIds(Pageable pageable);
+
+    @Query("SELECT o.id FROM Order o WHERE (o.createdAt, o.id) < (:createdAt, :id) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findIdsAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findFirstIdsByStatus(@Param("status") OrderStatusEnum status, Pageable pageable);
+
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND (o.createdAt, o.id) < (:createdAt, :id) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findIdsByStatusAfter(@Param("status") OrderStatusEnum status,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderProducts op " +
+            "WHERE o.id IN :ids")
+    List<Order> findAllWithItemsByIdIn(@Param("ids") List<Long> ids);
+
+    // Escritas de um pedido travam a linha antes de ler o estado anterior que vai para os resumos
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    @Query(value = "SELECT new br.com.system.usegm.domain.order.projection.OrderListRow(" +
+            "o.id, o.customerDetails, o.shippingDetails, o.status, o.createdAt, o.observations) " +
+            "FROM Order o WHERE (:status IS NULL OR o.status = :status) ORDER BY o.createdAt DESC, o.id DESC",
+            countQuery = "SELECT count(o) FROM Order o WHERE (:status IS NULL OR o.status = :status)")
+    Page<OrderListRow> findListRows(@Param("status") OrderStatusEnum status, Pageable pageable);
+
+    @Query("SELECT new br.com.system.usegm.domain.order.projection.OrderLineRow(op.order.id, op.product.id, op.quantity) " +
+            "FROM OrderProduct op WHERE op.order.id IN :orderIds ORDER BY op.id")
+    List<OrderLineRow> findLineRows(@Param("orderIds") List<Long> orderIds);
+
+    @Query("SELECT o.version FROM Order o WHERE o.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // A listagem também mostra nome e imagem dos produtos, então a maior versão de products entra junto;
+    // exclusões (inclusive as do arquivamento) entram por entity_deletions. Sem count(*): cada parte é
+    // um max() servido por índice, e um SQL por filtro evita o "IS NULL OR" que impede o uso dele
+    String PRODUCTS_AND_DELETIONS_VERSION = "(SELECT coalesce(max(p.version), 0) FROM products p), " +
+            "(SELECT coalesce(max(d.version), 0) FROM entity_deletions d)";
+    String LIST_VERSION_SQL = "SELECT greatest((SELECT coalesce(max(o.version), 0) FROM orders o), " +
+            PRODUCTS_AND_DELETIONS_VERSION + ")";
+    String LIST_VERSION_BY_STATUS_SQL = "SELECT greatest((SELECT coalesce(max(o.version), 0) FROM orders o " +
+            "WHERE o.status = :status), " + PRODUCTS_AND_DELETIONS_VERSION + ")";
+    String LIST_VERSION_WITH_ARCHIVE_SQL = "SELECT greatest((SELECT coalesce(max(o.version), 0) FROM orders o), " +
+            "(SELECT coalesce(max(a.version), 0) FROM orders_archive a), " + PRODUCTS_AND_DELETIONS_VERSION + ")";
+    String LIST_VERSION_WITH_ARCHIVE_BY_STATUS_SQL = "SELECT greatest((SELECT coalesce(max(o.version), 0) " +
+            "FROM orders o WHERE o.status = :status), (SELECT coalesce(max(a.version), 0) FROM orders_archive a " +
+            "WHERE a.status = :status), " + PRODUCTS_AND_DELETIONS_VERSION + ")";
+
+    @Query(value = LIST_VERSION_SQL, nativeQuery = true)
+    long findListVersion();
+
+    @Query(value = LIST_VERSION_BY_STATUS_SQL, nativeQuery = true)
+    long findListVersion(@Param("status") String status);
+
+    @Query(value = LIST_VERSION_WITH_ARCHIVE_SQL, nativeQuery = true)
+    long findListVersionWithArchive();
+
+    @Query(value = LIST_VERSION_WITH_ARCHIVE_BY_STATUS_SQL, nativeQuery = true)
+    long findListVersionWithArchive(@Param("status") String status);
 }
@@ -1,5 +1,7 @@
 package br.com.system.usegm.domain.order;
 
+import br.com.system.usegm.config.MetricsConfig;
+import br.com.system.usegm.domain.order.dto.OrderCursorPage;
 import br.com.system.usegm.domain.order.dto.OrderRequest;
 import br.com.system.usegm.domain.order.dto.OrderResponse;
 import br.com.system.usegm.domain.order.dto.PatchStatusDTO;
@@ -7,124 +9,294 @@ import br.com.system.usegm.domain.order.dto.ProductOrderRequest;
 import br.com.system.usegm.domain.order.embeddable.CustomerDetails;
 import br.com.system.usegm.domain.order.embeddable.ShippingDetails;
 import br.com.system.usegm.domain.order.embeddable.ShippingTypeEnum;
-import br.com.system.usegm.domain.product.Product;
-import br.com.system.usegm.domain.product.ProductRepository;
+import br.com.system.usegm.domain.order.projection.OrderLineRow;
+import br.com.system.usegm.domain.order.projection.OrderListRow;
+import br.com.system.usegm.domain.product.CatalogProduct;
+import br.com.system.usegm.domain.product.ProductCatalogCache;
+import br.com.system.usegm.domain.product.ProductImageService;
 import br.com.system.usegm.domain.product.dto.ProductResponse;
+import br.com.system.usegm.domain.summary.OrderSummaryService;
 import br.com.system.usegm.exception.EntityNotFoundException;
-import lombok.AllArgsConstructor;
-import org.modelmapper.ModelMapper;
+import br.com.system.usegm.exception.OrderArchivedException;
+import br.com.system.usegm.infra.web.EntityTags;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
+@RequiredArgsConstructor
 public class OrderService {
 
-    private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
-    private final ModelMapper mapper;
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
 
-    public Page<OrderResponse> getAllOrders(OrderStatusEnum status, Pageable pageable, boolean all) {
+    private final OrderRepository orderRepository;
+    private final StockReservationService stockReservationService;
+    private final ProductImageService productImageService;
+    private final OrderMapper orderMapper;
+    private final ProductCatalogCache productCatalogCache;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderChangeFeed orderChangeFeed;
+    private final OrderArchiveService orderArchiveService;
+
+    // Listagem por projeções (sem entidades no contexto de persistência); false volta às entidades.
+    // O setter atende quem monta o serviço fora do Spring (benchmarks)
+    @Setter
+    @Value("${api.orders.list.projection:true}")
+    private boolean listProjection;
+
+    @Transactional(readOnly = true)
+    public Page<OrderResponse> getAllOrders(OrderStatusEnum status, Pageable pageable, boolean all, boolean includeArchived) {
+        if (includeArchived) return getOrdersWithArchive(all ? null : status, pageable);
         return all ? getAllOrdersWithoutStatus(pageable) : getPagedOrders(status, pageable);
     }
 
     private Page<OrderResponse> getAllOrdersWithoutStatus(Pageable pageable) {
-        return orderRepository.findAllWithItems(pageable)
-                .map(order -> {
-                    OrderResponse orderResponse = mapper.map(order, OrderResponse.class);
-
-                    List<ProductResponse> productResponses = order.getOrderProducts().stream()
-                            .map(op -> {
-                                Product product = op.getProduct();
-                                return new ProductResponse(
-                                        product.getId(),
-                                        product.getName(),
-                                        product.getReference(),
-                                        op.getQuantity(),
-                                        product.getImage()
-                                );
-                            })
-                            .collect(Collectors.toList());
-
-                    // Associa os produtos ao OrderResponse
-                    orderResponse.setProducts(productResponses);
-
-                    return orderResponse;
-                });
+        if (listProjection) return getProjectedOrders(null, pageable);
+        return toResponsesWithProducts(orderRepository.findAllWithItems(pageable));
     }
 
     private Page<OrderResponse> getPagedOrders(OrderStatusEnum status, Pageable pageable) {
-        return orderRepository.findAllByStatusWithItems(status, pageable)
-                .map(order -> {
-                    OrderResponse orderResponse = mapper.map(order, OrderResponse.class);
+        if (listProjection) return getProjectedOrders(status, pageable);
+        return toResponsesWithProducts(orderRepository.findAllByStatusWithItems(status, pageable));
+    }
+
+    private Page<OrderResponse> getProjectedOrders(OrderStatusEnum status, Pageable pageable) {
+        return toProjectedResponses(orderRepository.findListRows(status, pageable), orderRepository::findLineRows);
+    }
+
+    // Pedidos quentes e arquivados juntos, sempre por projeções: o arquivo não tem entidades
+    private Page<OrderResponse> getOrdersWithArchive(OrderStatusEnum status, Pageable pageable) {
+        return toProjectedResponses(orderArchiveService.findListRows(status, pageable), orderArchiveService::findLineRows);
+    }
 
-                    List<ProductResponse> productResponses = order.getOrderProducts().stream()
-                            .map(op -> {
-                                Product product = op.getProduct();
-                                return new ProductResponse(
-                                        product.getId(),
-                                        product.getName(),
-                                        product.getReference(),
-                                        op.getQuantity(),
-                                        product.getImage()
-                                );
-                            })
-                            .collect(Collectors.toList());
+    // Uma consulta para a página de pedidos e outra para as suas linhas, ambas só com as colunas da resposta
+    private Page<OrderResponse> toProjectedResponses(Page<OrderListRow> rows, Function<List<Long>, List<OrderLineRow>> lineLoader) {
+        if (rows.isEmpty()) {
+            return rows.map(row -> orderMapper.toResponse(row, List.of()));
+        }
 
-                    orderResponse.setProducts(productResponses);
+        List<OrderLineRow> lines = lineLoader.apply(rows.map(OrderListRow::id).getContent());
+        Map<Long, CatalogProduct> products = productCatalogCache.getAll(lines.stream()
+                .map(OrderLineRow::productId)
+                .collect(Collectors.toSet()));
+        Map<Long, List<ProductResponse>> linesByOrder = lines.stream()
+                .collect(Collectors.groupingBy(OrderLineRow::orderId, Collectors.mapping(
+                        line -> toProductResponse(line, products.get(line.productId())), Collectors.toList())));
+
+        return rows.map(row -> orderMapper.toResponse(row, linesByOrder.getOrDefault(row.id(), List.of())));
+    }
+
+    private ProductResponse toProductResponse(OrderLineRow line, CatalogProduct product) {
+        if (product == null) {
+            return new ProductResponse(line.productId(), null, null, line.quantity(), null);
+        }
+        return new ProductResponse(product.getId(), product.getName(), product.getReference(),
+                line.quantity(), productImageService.imageUrl(product));
+    }
+
+    public OrderCursorPage getOrdersByCursor(OrderStatusEnum status, String cursor, int size, boolean includeArchived) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        if (includeArchived) {
+            return getOrdersByCursorWithArchive(status, cursor, pageSize);
+        }
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        // Fase 1: apenas os ids da página, resolvidos pelo índice (createdAt, id)
+        List<Long> ids = findCursorIds(status, cursor, limit);
+
+        boolean hasNext = ids.size() > pageSize;
+        if (hasNext) {
+            ids = ids.subList(0, pageSize);
+        }
+        if (ids.isEmpty()) {
+            return new OrderCursorPage(List.of(), pageSize, false, null);
+        }
+
+        // Fase 2: uma única consulta com as linhas dos pedidos da página, reordenada conforme a fase 1
+        Map<Long, Order> orders = orderRepository.findAllWithItemsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        Map<Long, CatalogProduct> products = catalogProducts(orders.values());
+        List<OrderResponse> content = ids.stream()
+                .map(orders::get)
+                .filter(Objects::nonNull)
+                .map(order -> toResponseWithProducts(order, products))
+                .collect(Collectors.toList());
+
+        String nextCursor = hasNext ? OrderCursor.of(orders.get(ids.get(ids.size() - 1))).encode() : null;
+        return new OrderCursorPage(content, pageSize, hasNext, nextCursor);
+    }
+
+    private OrderCursorPage getOrdersByCursorWithArchive(OrderStatusEnum status, String cursor, int pageSize) {
+        OrderCursor position = cursor == null || cursor.isEmpty() ? null : OrderCursor.decode(cursor);
+        List<OrderListRow> rows = orderArchiveService.findCursorRows(status, position, pageSize + 1);
+
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+        List<OrderResponse> content = toProjectedResponses(new PageImpl<>(rows), orderArchiveService::findLineRows).getContent();
+
+        OrderListRow last = hasNext ? rows.get(rows.size() - 1) : null;
+        String nextCursor = last == null ? null : new OrderCursor(last.createdAt(), last.id()).encode();
+        return new OrderCursorPage(content, pageSize, hasNext, nextCursor);
+    }
+
+    private List<Long> findCursorIds(OrderStatusEnum status, String cursor, Pageable limit) {
+        if (cursor == null || cursor.isEmpty()) {
+            return status == null
+                    ? orderRepository.findFirstIds(limit)
+                    : orderRepository.findFirstIdsByStatus(status, limit);
+        }
+        OrderCursor position = OrderCursor.decode(cursor);
+        return status == null
+                ? orderRepository.findIdsAfter(position.getCreatedAt(), position.getId(), limit)
+                : orderRepository.findIdsByStatusAfter(status, position.getCreatedAt(), position.getId(), limit);
+    }
 
-                    return orderResponse;
-                });
+    private Page<OrderResponse> toResponsesWithProducts(Page<Order> orders) {
+        Map<Long, CatalogProduct> products = catalogProducts(orders.getContent());
+        return orders.map(order -> toResponseWithProducts(order, products));
+    }
+
+    // Produtos de todas as linhas da página em uma única ida ao cache
+    private Map<Long, CatalogProduct> catalogProducts(Collection<Order> orders) {
+        Set<Long> productIds = orders.stream()
+                .flatMap(order -> order.getOrderProducts().stream())
+                .map(op -> op.getProduct().getId())
+                .collect(Collectors.toSet());
+        return productCatalogCache.getAll(productIds);
+    }
+
+    private OrderResponse toResponseWithProducts(Order order, Map<Long, CatalogProduct> products) {
+        List<ProductResponse> productResponses = order.getOrderProducts().stream()
+                .map(op -> {
+                    CatalogProduct product = products.get(op.getProduct().getId());
+                    if (product == null) {
+                        product = CatalogProduct.of(op.getProduct());
+                    }
+                    return new ProductResponse(
+                            product.getId(),
+                            product.getName(),
+                            product.getReference(),
+                            op.getQuantity(),
+                            productImageService.imageUrl(product)
+                    );
+                })
+                .collect(Collectors.toList());
+
+        // Associa os produtos ao OrderResponse
+        return orderMapper.toResponse(order, productResponses);
+    }
+
+    // ETag do pedido lida só da coluna version, sem carregar o pedido nem as linhas
+    public String getOrderTag(Long id) {
+        return orderRepository.findVersionById(id)
+                .or(() -> orderArchiveService.findVersion(id))
+                .map(EntityTags::of)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+    }
+
+    /**
+     * ETag da listagem: maior versão entre pedidos do filtro, produtos e exclusões, junto com o
+     * filtro e a página pedida, para que páginas e ordenações diferentes não compartilhem a tag.
+     */
+    public String getOrdersTag(OrderStatusEnum status, boolean all, boolean includeArchived, Pageable pageable) {
+        String filter = all || status == null ? null : status.name();
+        long version;
+        if (includeArchived) {
+            version = filter == null ? orderRepository.findListVersionWithArchive() : orderRepository.findListVersionWithArchive(filter);
+        } else {
+            version = filter == null ? orderRepository.findListVersion() : orderRepository.findListVersion(filter);
+        }
+        String sort = pageable.getSort().stream()
+                .map(order -> order.getProperty() + "." + order.getDirection())
+                .collect(Collectors.joining(","));
+        return EntityTags.of("orders", filter, includeArchived, pageable.getPageNumber(), pageable.getPageSize(), sort, version);
     }
 
     public OrderResponse getOrderById(Long id) {
         return orderRepository.findById(id)
-                .map(order -> mapper.map(order, OrderResponse.class))
+                .or(() -> orderArchiveService.findOrder(id))
+                .map(orderMapper::toResponse)
                 .orElseThrow(() -> new EntityNotFoundException("Order not found"));
     }
 
+    @Transactional
     public OrderResponse createOrder(OrderRequest orderRequest) {
         Order order = buildNewOrder(orderRequest);
-        order.setOrderProducts(handleOrderProducts(orderRequest.getProducts(), order, false));
-        return mapper.map(orderRepository.save(order), OrderResponse.class);
+        order.setOrderProducts(stockReservationService.reserve(orderRequest.getProducts(), order));
+        Order saved = orderRepository.save(order);
+        orderSummaryService.apply(null, orderSummaryService.snapshot(saved));
+        orderChangeFeed.publish(OrderChangeType.CREATED, saved.getId(), saved.getStatus(), null);
+        return orderMapper.toResponse(saved);
     }
 
+    @Transactional
     public void deleteOrder(Long id) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
-        handleProductStockOnDeletion(order.getOrderProducts());
+        Order order = findForUpdate(id);
+        orderSummaryService.apply(orderSummaryService.snapshot(order), null);
+        stockReservationService.release(order.getOrderProducts());
         orderRepository.deleteById(id);
+        orderChangeFeed.publish(OrderChangeType.DELETED, id, null, order.getStatus());
     }
 
+    @Transactional
     public OrderResponse updateOrderStatus(Long id, PatchStatusDTO status) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+        Order order = findForUpdate(id);
+        OrderSummaryService.Snapshot before = orderSummaryService.snapshot(order);
         order.setStatus(status.getStatus());
-        return mapper.map(orderRepository.save(order), OrderResponse.class);
+        Order saved = orderRepository.save(order);
+        orderSummaryService.apply(before, orderSummaryService.snapshot(saved));
+        if (before.getStatus() != saved.getStatus()) {
+            orderChangeFeed.publish(OrderChangeType.STATUS_CHANGED, id, saved.getStatus(), before.getStatus());
+        }
+        return orderMapper.toResponse(saved);
     }
 
+    @Transactional
     public OrderResponse updateOrder(Long id, OrderRequest orderRequest) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+        Order order = findForUpdate(id);
+        OrderSummaryService.Snapshot before = orderSummaryService.snapshot(order);
 
         updateCustomerDetails(order.getCustomerDetails(), orderRequest.getCustomerDetails());
         updateShippingDetails(order.getShippingDetails(), orderRequest.getShippingDetails());
         updateSimpleFields(order, orderRequest);
         updateOrderProducts(order, orderRequest.getProducts());
 
-        return mapper.map(orderRepository.save(order), OrderResponse.class);
+        Order saved = orderRepository.save(order);
+        orderSummaryService.apply(before, orderSummaryService.snapshot(saved));
+        orderChangeFeed.publish(OrderChangeType.UPDATED, id, saved.getStatus(), before.getStatus());
+        return orderMapper.toResponse(saved);
+    }
+
+    // Pedido arquivado existe, mas é somente leitura: 409 em vez de 404
+    private Order findForUpdate(Long id) {
+        return orderRepository.findByIdForUpdate(id).orElseThrow(() -> orderArchiveService.findVersion(id).isPresent()
+                ? new OrderArchivedException("Order " + id + " is archived and can no longer be changed")
+                : new EntityNotFoundException("Order not found"));
     }
 
-    private Order buildNewOrder(OrderRequest orderRequest) {
+    Order buildNewOrder(OrderRequest orderRequest) {
         Order order = new Order();
         order.setCustomerDetails(orderRequest.getCustomerDetails());
         order.setShippingDetails(orderRequest.getShippingDetails());
@@ -138,42 +310,6 @@ public class OrderService {
         return order;
     }
 
-    private List<OrderProduct> handleOrderProducts(List<ProductOrderRequest> productRequests, Order order, boolean isReversing) {
-        List<OrderProduct> orderProducts = new ArrayList<>();
-
-        for (ProductOrderRequest item : productRequests) {
-            Product product = productRepository.findById(item.getId())
-                    .orElseThrow(() -> new EntityNotFoundException("Product with ID " + item.getId() + " not found"));
-
-            int quantityChange = isReversing ? item.getQuantity() : -item.getQuantity();
-
-            if (product.getQuantity() + quantityChange < 0) {
-                throw new IllegalArgumentException(
-                        "Produto " + product.getName() + " tem saldo insuficiente. Requerido: " + item.getQuantity()
-                                + ", Disponível: " + product.getQuantity());
-            }
-
-            product.setQuantity(product.getQuantity() + quantityChange);
-            productRepository.save(product);
-
-            OrderProduct orderProduct = new OrderProduct();
-            orderProduct.setOrder(order);
-            orderProduct.setProduct(product);
-            orderProduct.setQuantity(item.getQuantity());
-            orderProducts.add(orderProduct);
-        }
-
-        return orderProducts;
-    }
-
-    private void handleProductStockOnDeletion(List<OrderProduct> orderProducts) {
-        orderProducts.forEach(orderProduct -> {
-            Product product = orderProduct.getProduct();
-            product.setQuantity(product.getQuantity() + orderProduct.getQuantity());
-            productRepository.save(product);
-        });
-    }
-
     private void updateCustomerDetails(CustomerDetails existingDetails, CustomerDetails requestDetails) {
         if (requestDetails == null) return;
         updateIfNotEmpty(requestDetails.getName(), existingDetails::setName);
@@ -210,8 +346,10 @@ public class OrderService {
 
     private void updateOrderProducts(Order existingOrder, List<ProductOrderRequest> productsRequest) {
         if (productsRequest == null || productsRequest.isEmpty()) return;
-        handleProductStockOnDeletion(existingOrder.getOrderProducts());
-        existingOrder.setOrderProducts(handleOrderProducts(productsRequest, existingOrder, false));
+        stockReservationService.release(existingOrder.getOrderProducts());
+        List<OrderProduct> orderProducts = stockReservationService.reserve(productsRequest, existingOrder);
+        existingOrder.getOrderProducts().clear();
+        existingOrder.getOrderProducts().addAll(orderProducts);
     }
 
     private void updateIfNotEmpty(String value, Consumer<String> updater) {
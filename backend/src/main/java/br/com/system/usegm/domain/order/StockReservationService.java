@@ -0,0 +1,288 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.dto.ProductOrderRequest;
+import br.com.system.usegm.domain.product.CatalogProduct;
+import br.com.system.usegm.domain.product.HotStockLedger;
+import br.com.system.usegm.domain.product.ProductCatalogCache;
+import br.com.system.usegm.domain.product.ProductRepository;
+import br.com.system.usegm.exception.EntityNotFoundException;
+import br.com.system.usegm.exception.InsufficientStockException;
+import br.com.system.usegm.exception.stockerror.StockError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reserva e devolve saldo de produtos de um pedido de forma atômica.
+ * Os produtos são resolvidos pelo {@link ProductCatalogCache} (uma única consulta para os ausentes)
+ * e o saldo é alterado com UPDATEs condicionais enviados em um único batch, sem read-modify-write
+ * na entidade. O saldo nunca vem do cache: quem decide é o {@code quantity >= ?} do UPDATE.
+ * Produtos quentes ({@link HotStockLedger}) não passam pelo UPDATE: o saldo sai do contador em memória.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private static final String RESERVE_SQL = "UPDATE products SET quantity = quantity - ? WHERE id = ? AND quantity >= ?";
+    private static final String RELEASE_SQL = "UPDATE products SET quantity = quantity + ? WHERE id = ?";
+    private static final String AVAILABLE_SQL = "SELECT id, quantity FROM products WHERE id IN (";
+    private static final String LOCK_SQL = "SELECT id, quantity FROM products WHERE id = ANY (?) ORDER BY id FOR UPDATE";
+
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final HotStockLedger hotStockLedger;
+
+    /**
+     * Baixa o saldo de todos os itens e devolve as linhas do pedido já associadas aos produtos.
+     * Se algum produto não tiver saldo, lança {@link InsufficientStockException} com todas as
+     * linhas que falharam e a transação é desfeita.
+     */
+    @Transactional
+    public List<OrderProduct> reserve(List<ProductOrderRequest> items, Order order) {
+        Map<Long, Integer> requested = sumByProduct(items);
+        Map<Long, CatalogProduct> products = loadProducts(requested.keySet());
+
+        // Reservas dos quentes que deram certo são devolvidas ao contador se a transação for desfeita
+        List<Long> rejected = new ArrayList<>();
+        List<Long> productIds = new ArrayList<>();
+        requested.forEach((productId, quantity) -> {
+            if (!hotStockLedger.isHot(productId)) productIds.add(productId);
+            else if (!hotStockLedger.tryReserve(productId, quantity)) rejected.add(productId);
+        });
+
+        // Linhas travadas sempre em ordem de id, como no reserveAll: pedidos com os mesmos produtos
+        // em ordens diferentes não entram em deadlock
+        productIds.sort(null);
+        int[] updated = productIds.isEmpty() ? new int[0] : batchUpdate(RESERVE_SQL, productIds, (ps, productId) -> {
+            int quantity = requested.get(productId);
+            ps.setInt(1, quantity);
+            ps.setLong(2, productId);
+            ps.setInt(3, quantity);
+        });
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) rejected.add(productIds.get(i));
+        }
+
+        if (!rejected.isEmpty()) {
+            throw new InsufficientStockException(rejectedLines(items, products, rejected));
+        }
+        return orderLines(items, order);
+    }
+
+    /**
+     * Reserva de um lote de pedidos na transação do chamador (intake em grupo). O saldo dos
+     * produtos do lote é travado e lido uma única vez e os pedidos são atendidos em ordem de
+     * chegada contra ele; as baixas vão depois em um único batch de UPDATEs. Cada pedido recebe a
+     * exceção que o {@link #reserve} lançaria sozinho, sem afetar os demais: o retorno traz, na
+     * ordem de {@code orders}, {@code null} para os reservados (com as linhas já associadas ao
+     * pedido) ou a exceção do pedido recusado.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<RuntimeException> reserveAll(List<Order> orders, List<List<ProductOrderRequest>> items) {
+        Set<Long> productIds = new HashSet<>();
+        items.forEach(lines -> lines.forEach(item -> productIds.add(item.getId())));
+        Map<Long, CatalogProduct> products = productCatalogCache.getAll(productIds);
+
+        Map<Long, Integer> remaining = new HashMap<>();
+        Long[] locked = productIds.stream()
+                .filter(id -> products.containsKey(id) && !hotStockLedger.isHot(id))
+                .toArray(Long[]::new);
+        if (locked.length > 0) {
+            jdbcTemplate.query(LOCK_SQL, rs -> {
+                remaining.put(rs.getLong("id"), rs.getInt("quantity"));
+            }, (Object) locked);
+        }
+
+        Map<Long, Integer> reserved = new LinkedHashMap<>();
+        List<RuntimeException> failures = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            failures.add(reserveFromBatch(orders.get(i), items.get(i), products, remaining, reserved));
+        }
+
+        if (!reserved.isEmpty()) {
+            List<Long> reservedIds = new ArrayList<>(reserved.keySet());
+            reservedIds.sort(null);
+            int[] updated = batchUpdate(RESERVE_SQL, reservedIds, (ps, productId) -> {
+                int quantity = reserved.get(productId);
+                ps.setInt(1, quantity);
+                ps.setLong(2, productId);
+                ps.setInt(3, quantity);
+            });
+            // As linhas estão travadas desde a leitura; um UPDATE sem efeito é erro, não falta de saldo
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    throw new IllegalStateException("Stock of product " + reservedIds.get(i) + " changed while locked");
+                }
+            }
+        }
+        return failures;
+    }
+
+    private RuntimeException reserveFromBatch(Order order, List<ProductOrderRequest> items, Map<Long, CatalogProduct> products,
+                                              Map<Long, Integer> remaining, Map<Long, Integer> reserved) {
+        Map<Long, Integer> requested = sumByProduct(items);
+        List<Long> missing = requested.keySet().stream().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            return productsNotFound(missing);
+        }
+
+        Map<Long, Integer> available = new HashMap<>();
+        List<Long> rejected = new ArrayList<>();
+        requested.forEach((productId, quantity) -> {
+            int left = hotStockLedger.available(productId).orElseGet(() -> remaining.getOrDefault(productId, 0));
+            available.put(productId, left);
+            if (left < quantity) rejected.add(productId);
+        });
+
+        // Os quentes só são reservados quando todas as linhas cabem; se outro pedido levou o saldo
+        // no meio do caminho, as reservas quentes deste pedido são devolvidas
+        if (rejected.isEmpty()) {
+            List<Long> hotReserved = new ArrayList<>();
+            for (Map.Entry<Long, Integer> line : requested.entrySet()) {
+                if (!hotStockLedger.isHot(line.getKey())) continue;
+                if (!hotStockLedger.tryReserve(line.getKey(), line.getValue())) {
+                    rejected.add(line.getKey());
+                    break;
+                }
+                hotReserved.add(line.getKey());
+            }
+            if (!rejected.isEmpty()) {
+                hotReserved.forEach(productId -> hotStockLedger.release(productId, requested.get(productId)));
+            }
+        }
+        if (!rejected.isEmpty()) {
+            return new InsufficientStockException(stockErrors(items, products, rejected, available));
+        }
+
+        requested.forEach((productId, quantity) -> {
+            if (hotStockLedger.isHot(productId)) return;
+            remaining.merge(productId, -quantity, Integer::sum);
+            reserved.merge(productId, quantity, Integer::sum);
+        });
+        order.setOrderProducts(orderLines(items, order));
+        return null;
+    }
+
+    private List<OrderProduct> orderLines(List<ProductOrderRequest> items, Order order) {
+        List<OrderProduct> orderProducts = new ArrayList<>();
+        for (ProductOrderRequest item : items) {
+            OrderProduct orderProduct = new OrderProduct();
+            orderProduct.setOrder(order);
+            orderProduct.setProduct(productRepository.getReferenceById(item.getId()));
+            orderProduct.setQuantity(item.getQuantity());
+            orderProducts.add(orderProduct);
+        }
+        return orderProducts;
+    }
+
+    /**
+     * Devolve ao estoque o saldo das linhas informadas (exclusão ou edição de pedido).
+     */
+    @Transactional
+    public void release(List<OrderProduct> orderProducts) {
+        if (orderProducts.isEmpty()) return;
+        Map<Long, Integer> released = orderProducts.stream()
+                .collect(Collectors.toMap(op -> op.getProduct().getId(), OrderProduct::getQuantity, Integer::sum, LinkedHashMap::new));
+
+        List<Long> productIds = new ArrayList<>();
+        released.forEach((productId, quantity) -> {
+            if (hotStockLedger.isHot(productId)) hotStockLedger.release(productId, quantity);
+            else productIds.add(productId);
+        });
+        if (productIds.isEmpty()) return;
+        productIds.sort(null);
+        batchUpdate(RELEASE_SQL, productIds, (ps, productId) -> {
+            ps.setInt(1, released.get(productId));
+            ps.setLong(2, productId);
+        });
+    }
+
+    private List<StockError> rejectedLines(List<ProductOrderRequest> items, Map<Long, CatalogProduct> products, List<Long> rejected) {
+        // Saldo lido do banco (ou do contador, para os quentes), nunca do cache
+        Map<Long, Integer> available = new LinkedHashMap<>();
+        List<Long> fromDatabase = new ArrayList<>();
+        rejected.forEach(id -> hotStockLedger.available(id).ifPresentOrElse(quantity -> available.put(id, quantity), () -> fromDatabase.add(id)));
+        if (!fromDatabase.isEmpty()) {
+            jdbcTemplate.query(AVAILABLE_SQL + fromDatabase.stream().map(id -> "?").collect(Collectors.joining(", ")) + ")",
+                    rs -> {
+                        available.put(rs.getLong("id"), rs.getInt("quantity"));
+                    },
+                    fromDatabase.toArray());
+        }
+        return stockErrors(items, products, rejected, available);
+    }
+
+    private List<StockError> stockErrors(List<ProductOrderRequest> items, Map<Long, CatalogProduct> products,
+                                         List<Long> rejected, Map<Long, Integer> available) {
+        List<StockError> errors = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            ProductOrderRequest item = items.get(i);
+            if (rejected.contains(item.getId())) {
+                CatalogProduct product = products.get(item.getId());
+                errors.add(new StockError(i, product.getId(), product.getName(), item.getQuantity(),
+                        available.getOrDefault(product.getId(), 0)));
+            }
+        }
+        return errors;
+    }
+
+    private Map<Long, Integer> sumByProduct(List<ProductOrderRequest> items) {
+        return items.stream()
+                .collect(Collectors.toMap(ProductOrderRequest::getId, ProductOrderRequest::getQuantity, Integer::sum, LinkedHashMap::new));
+    }
+
+    private Map<Long, CatalogProduct> loadProducts(Collection<Long> productIds) {
+        Map<Long, CatalogProduct> products = productCatalogCache.getAll(productIds);
+
+        List<Long> missing = new ArrayList<>();
+        productIds.forEach(id -> {
+            if (!products.containsKey(id)) missing.add(id);
+        });
+        if (!missing.isEmpty()) {
+            throw productsNotFound(missing);
+        }
+        return products;
+    }
+
+    private static EntityNotFoundException productsNotFound(List<Long> missing) {
+        if (missing.size() == 1) {
+            return new EntityNotFoundException("Product with ID " + missing.get(0) + " not found");
+        }
+        return new EntityNotFoundException("Products with IDs " + missing + " not found");
+    }
+
+    private int[] batchUpdate(String sql, List<Long> productIds, ProductStatementSetter setter) {
+        return jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setter.setValues(ps, productIds.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return productIds.size();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ProductStatementSetter {
+        void setValues(PreparedStatement ps, Long productId) throws SQLException;
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.system.usegm.domain.order.dto;
+
+import br.com.system.usegm.domain.order.OrderStatusEnum;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Pedidos a mover para {@code status}: os {@code ids} informados ou todos os que estão em
+ * {@code fromStatus}.
+ */
+@Data
+public class BulkStatusRequest {
+
+    @Size(max = 10000)
+    private List<Long> ids;
+
+    private OrderStatusEnum fromStatus;
+
+    @NotNull
+    private OrderStatusEnum status;
+
+    @AssertTrue(message = "Provide either ids or fromStatus")
+    public boolean isSelectionValid() {
+        return (ids != null && !ids.isEmpty()) != (fromStatus != null);
+    }
+}
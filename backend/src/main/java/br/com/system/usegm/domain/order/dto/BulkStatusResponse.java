@@ -0,0 +1,20 @@
+package br.com.system.usegm.domain.order.dto;
+
+import br.com.system.usegm.domain.order.OrderStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResponse {
+
+    private OrderStatusEnum status;
+    private List<Long> updated;
+    // Já estavam no status de destino
+    private List<Long> unchanged;
+    private List<Long> notFound;
+}
@@ -0,0 +1,24 @@
+package br.com.system.usegm.domain.order.dto;
+
+import br.com.system.usegm.domain.order.OrderChangeType;
+import br.com.system.usegm.domain.order.OrderStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderChangeEvent {
+
+    private long id;
+    private OrderChangeType type;
+    private Long orderId;
+    // Nulo em exclusões
+    private OrderStatusEnum status;
+    // Nulo em criações
+    private OrderStatusEnum previousStatus;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,18 @@
+package br.com.system.usegm.domain.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCursorPage {
+
+    private List<OrderResponse> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
@@ -0,0 +1,5 @@
+package br.com.system.usegm.domain.order.projection;
+
+// Linha de pedido com apenas as chaves estrangeiras; os dados do produto vêm do ProductCatalogCache
+public record OrderLineRow(Long orderId, Long productId, int quantity) {
+}
@@ -0,0 +1,16 @@
+package br.com.system.usegm.domain.order.projection;
+
+import br.com.system.usegm.domain.order.OrderStatusEnum;
+import br.com.system.usegm.domain.order.embeddable.CustomerDetails;
+import br.com.system.usegm.domain.order.embeddable.ShippingDetails;
+
+import java.time.LocalDateTime;
+
+// Colunas de orders usadas pela listagem; os embeddables chegam como valores, sem entidade gerenciada
+public record OrderListRow(Long id,
+                           CustomerDetails customerDetails,
+                           ShippingDetails shippingDetails,
+                           OrderStatusEnum status,
+                           LocalDateTime createdAt,
+                           String observations) {
+}
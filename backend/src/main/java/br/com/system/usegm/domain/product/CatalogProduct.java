@@ -0,0 +1,25 @@
+package br.com.system.usegm.domain.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Dados de catálogo de um {@link Product} guardados no {@link ProductCatalogCache}. Não inclui o
+ * saldo: estoque é sempre lido e alterado direto no banco.
+ */
+@Getter
+@AllArgsConstructor
+public class CatalogProduct {
+
+    private final Long id;
+    private final String name;
+    private final String reference;
+    private final String image;
+    private final String imageHash;
+    private final String imageContentType;
+
+    public static CatalogProduct of(Product product) {
+        return new CatalogProduct(product.getId(), product.getName(), product.getReference(),
+                product.getImage(), product.getImageHash(), product.getImageContentType());
+    }
+}
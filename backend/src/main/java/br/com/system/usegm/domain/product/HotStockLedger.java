@@ -0,0 +1,202 @@
+package br.com.system.usegm.domain.product;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saldo em memória dos produtos quentes ({@code api.stock.hot.products}), para que os pedidos de
+ * uma promoção não se enfileirem no lock da mesma linha de {@code products}. A reserva é um CAS
+ * no contador; cada movimento também grava um delta em {@code stock_intents} na transação do
+ * pedido (INSERT, sem disputa de linha). Periodicamente os deltas confirmados são somados a
+ * {@code products.quantity} e apagados em um único comando. Na subida os deltas pendentes são
+ * aplicados antes de carregar os contadores, então uma queda não perde reservas confirmadas.
+ * Pressupõe uma única instância da aplicação dona desses produtos.
+ * <p>
+ * Cada produto guarda, num único {@code long}, o saldo disponível e o total reservado por
+ * transações ainda abertas. Um ajuste manual mira o saldo sem essas reservas, então a que for
+ * desfeita depois devolve o que tirou e a confirmada não tira de novo.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class HotStockLedger implements InitializingBean, DisposableBean {
+
+    private static final String[] DDL = {
+            "CREATE TABLE IF NOT EXISTS stock_intents (id bigserial PRIMARY KEY, product_id bigint NOT NULL, delta integer NOT NULL, created_at timestamp NOT NULL DEFAULT now())"
+    };
+    private static final String INSERT_INTENT_SQL = "INSERT INTO stock_intents (product_id, delta) VALUES (?, ?)";
+    private static final String FLUSH_SQL = """
+            WITH moved AS (DELETE FROM stock_intents RETURNING product_id, delta)
+            UPDATE products p SET quantity = p.quantity + m.delta
+            FROM (SELECT product_id, sum(delta) AS delta FROM moved GROUP BY product_id) m
+            WHERE p.id = m.product_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<Long> hotProductIds;
+    private final Duration flushInterval;
+    private final Map<Long, AtomicLong> available = new HashMap<>();
+    private ScheduledExecutorService flusher;
+
+    public HotStockLedger(JdbcTemplate jdbcTemplate,
+                          @Value("${api.stock.hot.products:}") List<Long> hotProductIds,
+                          @Value("${api.stock.hot.flush-interval:1s}") Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotProductIds = hotProductIds;
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String ddl : DDL) {
+            jdbcTemplate.execute(ddl);
+        }
+        // Mesmo com a lista vazia: deltas de uma execução anterior ainda precisam chegar ao banco
+        flush();
+        if (hotProductIds.isEmpty()) return;
+
+        jdbcTemplate.query("SELECT id, quantity FROM products WHERE id = ANY (?)",
+                rs -> {
+                    available.put(rs.getLong("id"), new AtomicLong(stock(rs.getInt("quantity"), 0)));
+                },
+                (Object) hotProductIds.toArray(Long[]::new));
+        hotProductIds.stream()
+                .filter(id -> !available.containsKey(id))
+                .forEach(id -> log.warn("Hot stock product {} not found, using the database for it", id));
+
+        flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("stock-flush-"));
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Hot stock ledger enabled for products {}", available.keySet());
+    }
+
+    @Override
+    public void destroy() {
+        if (flusher == null) return;
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    public boolean isHot(Long productId) {
+        return available.containsKey(productId);
+    }
+
+    public OptionalInt available(Long productId) {
+        AtomicLong counter = available.get(productId);
+        return counter == null ? OptionalInt.empty() : OptionalInt.of(availableOf(counter.get()));
+    }
+
+    /**
+     * Reserva {@code quantity} de um produto quente se houver saldo. Exige transação: o delta é
+     * gravado nela e, se ela for desfeita, o saldo volta ao contador.
+     */
+    public boolean tryReserve(Long productId, int quantity) {
+        requireTransaction();
+        AtomicLong counter = available.get(productId);
+        long current;
+        do {
+            current = counter.get();
+            if (availableOf(current) < quantity) return false;
+        } while (!counter.compareAndSet(current, stock(availableOf(current) - quantity, heldOf(current) + quantity)));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                int returned = status == STATUS_COMMITTED ? 0 : quantity;
+                counter.updateAndGet(state -> stock(availableOf(state) + returned, heldOf(state) - quantity));
+            }
+        });
+        jdbcTemplate.update(INSERT_INTENT_SQL, productId, -quantity);
+        return true;
+    }
+
+    // Devolução só aparece no contador depois do commit, para não vender um saldo que pode não voltar
+    public void release(Long productId, int quantity) {
+        requireTransaction();
+        AtomicLong counter = available.get(productId);
+        jdbcTemplate.update(INSERT_INTENT_SQL, productId, quantity);
+        afterCompletion(true, () -> addAvailable(counter, quantity));
+    }
+
+    // Ajuste manual do saldo (edição ou importação de produto), gravado e devolvido como delta
+    public int adjustTo(Long productId, int quantity) {
+        requireTransaction();
+        AtomicLong counter = available.get(productId);
+        long current;
+        int delta;
+        do {
+            current = counter.get();
+            delta = quantity - (availableOf(current) + heldOf(current));
+            if (delta == 0) return 0;
+        } while (!counter.compareAndSet(current, stock(availableOf(current) + delta, heldOf(current))));
+
+        int applied = delta;
+        afterCompletion(false, () -> addAvailable(counter, -applied));
+        jdbcTemplate.update(INSERT_INTENT_SQL, productId, delta);
+        return delta;
+    }
+
+    public int flush() {
+        return jdbcTemplate.update(FLUSH_SQL);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Error while flushing hot stock intents", e);
+        }
+    }
+
+    private static void addAvailable(AtomicLong counter, int quantity) {
+        counter.updateAndGet(state -> stock(availableOf(state) + quantity, heldOf(state)));
+    }
+
+    // Saldo disponível nos 32 bits altos, reservas em aberto nos baixos
+    private static long stock(int available, int held) {
+        return ((long) available << 32) | (held & 0xFFFFFFFFL);
+    }
+
+    private static int availableOf(long stock) {
+        return (int) (stock >> 32);
+    }
+
+    private static int heldOf(long stock) {
+        return (int) stock;
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Hot stock changes require an active transaction");
+        }
+    }
+
+    // onCommit: roda após o commit; senão roda só se a transação for desfeita
+    private static void afterCompletion(boolean onCommit, Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (onCommit ? status == STATUS_COMMITTED : status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
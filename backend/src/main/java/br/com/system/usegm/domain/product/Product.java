@@ -4,24 +4,37 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
+// Índice único de reference criado pelo ProductReferenceIndex
 @Table(name = "products")
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+// UPDATE só com as colunas alteradas: salvar o produto não sobrescreve o saldo movido por SQL
+@DynamicUpdate
 public class Product {
 
+    // Sequência com otimizador pooled: os ids são reservados em blocos e os INSERTs podem ir em batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String reference;
     private int quantity;
     @Column(columnDefinition = "TEXT")
     private String image;
+    @Column(length = 64)
+    private String imageHash;
+    private String imageContentType;
     @Temporal(TemporalType.TIMESTAMP)
     private LocalDateTime createdAt;
+
+    // Versão global mantida pelo banco (EntityVersionTriggers); base das ETags, nunca escrita pelo Hibernate
+    @Column(insertable = false, updatable = false)
+    private Long version;
 }
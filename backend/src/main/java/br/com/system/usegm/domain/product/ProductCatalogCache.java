@@ -0,0 +1,66 @@
+package br.com.system.usegm.domain.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Cache read-through dos dados de catálogo dos produtos, usado para montar as linhas dos pedidos
+ * sem buscar {@link Product} a cada visualização. Limitado por tamanho e por tempo; as entradas são
+ * removidas quando o produto é alterado ou excluído. Métricas em {@code cache.*{cache=products}}.
+ */
+@Component
+public class ProductCatalogCache {
+
+    private final ProductRepository productRepository;
+    private final Cache<Long, CatalogProduct> products;
+
+    public ProductCatalogCache(ProductRepository productRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${api.cache.products.ttl:10m}") Duration ttl,
+                               @Value("${api.cache.products.size:10000}") long size) {
+        this.productRepository = productRepository;
+        this.products = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "products");
+    }
+
+    /**
+     * Produtos encontrados entre os ids informados; os ausentes do cache são buscados em uma
+     * única consulta. Ids inexistentes não aparecem no resultado.
+     */
+    public Map<Long, CatalogProduct> getAll(Collection<Long> ids) {
+        return products.getAll(ids, missing -> productRepository.findAllById(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(Product::getId, CatalogProduct::of)));
+    }
+
+    /**
+     * Remove o produto do cache. Dentro de uma transação a remoção é repetida depois do commit,
+     * para que uma leitura concorrente não recoloque a versão antiga.
+     */
+    public void evict(Long id) {
+        products.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    products.invalidate(id);
+                }
+            });
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package br.com.system.usegm.domain.product;
 
+import br.com.system.usegm.domain.product.dto.ProductImportReport;
 import br.com.system.usegm.domain.product.dto.ProductRequest;
 import br.com.system.usegm.domain.product.dto.ProductResponse;
+import br.com.system.usegm.infra.storage.ImageStore;
+import br.com.system.usegm.infra.storage.StoredImage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/v1/products")
@@ -19,14 +35,39 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImageService productImageService;
+    private final ImageStore imageStore;
+    private final ProductImportService productImportService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public ResponseEntity<Page<ProductResponse>> getAllProducts(@RequestParam(required = false) String reference, Pageable pageable) {
+    public ResponseEntity<Page<ProductResponse>> getAllProducts(@RequestParam(required = false) String reference, Pageable pageable, ServletWebRequest webRequest) {
+        if (webRequest.checkNotModified(productService.getProductsTag(reference))) return null;
         Page<ProductResponse> products = productService.getAllProducts(reference, pageable);
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(productService.search(q, limit));
+    }
+
+    @GetMapping("/{id}/image")
+    public void getProductImage(@PathVariable Long id, @RequestParam(required = false) Integer size, ServletWebRequest webRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // O tipo gravado é o que vale, nunca o que o navegador adivinhar do conteúdo
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        StoredImage image = productImageService.findImage(id, size);
+        if (webRequest.checkNotModified("\"" + image.getEtag() + "\"")) return;
+
+        CacheControl cacheControl = image.isImmutable()
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.noCache();
+        response.setContentType(image.getContentType());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        imageStore.transferTo(image.getPath(), request, response);
+    }
+
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
     public ResponseEntity<ProductResponse> createProduct(@RequestBody @Valid ProductRequest productRequest) {
@@ -34,6 +75,23 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
 
+    /**
+     * Importação em massa: o corpo é o próprio arquivo (text/csv com cabeçalho
+     * reference,name,quantity[,image] ou application/x-ndjson), lido em streaming.
+     */
+    @PostMapping(value = "/import", consumes = {ProductImportService.CSV, ProductImportService.NDJSON})
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<ProductImportReport> importProducts(HttpServletRequest request) throws IOException {
+        boolean csv = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType(ProductImportService.CSV));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            ProductImportReport report = csv
+                    ? productImportService.importCsv(reader)
+                    : productImportService.importNdjson(reader);
+            return ResponseEntity.ok(report);
+        }
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN')")
     public ResponseEntity<ProductResponse> updateProduct(@PathVariable Long id, @RequestBody @Valid ProductRequest productRequest) {
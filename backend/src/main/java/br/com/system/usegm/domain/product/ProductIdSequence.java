@@ -0,0 +1,31 @@
+package br.com.system.usegm.domain.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Os produtos eram gerados por IDENTITY. Depois que o {@code ddl-auto} cria a sequência
+ * {@code products_seq}, ela é adiantada para além do maior id existente, antes de qualquer
+ * INSERT, para que os blocos reservados pelo Hibernate não colidam com linhas antigas.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class ProductIdSequence implements InitializingBean {
+
+    private static final String ALIGN_SQL = """
+            SELECT setval('products_seq', greatest(
+                (SELECT coalesce(max(id), 1) FROM products),
+                (SELECT last_value FROM products_seq)))
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.queryForObject(ALIGN_SQL, Long.class);
+    }
+}
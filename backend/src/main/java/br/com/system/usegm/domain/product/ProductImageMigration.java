@@ -0,0 +1,41 @@
+package br.com.system.usegm.domain.product;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Move para o {@link br.com.system.usegm.infra.storage.ImageStore} as imagens que ainda estão
+ * gravadas inline na coluna {@code products.image}. Cada produto é migrado na sua própria
+ * transação, então a execução pode ser interrompida e retomada no próximo start.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductImageMigration implements ApplicationRunner {
+
+    private final ProductRepository productRepository;
+    private final ProductImageService productImageService;
+
+    @Value("${api.storage.images.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!migrateOnStartup) return;
+
+        List<Long> ids = productRepository.findIdsWithInlineImage();
+        if (ids.isEmpty()) return;
+
+        int migrated = 0;
+        for (Long id : ids) {
+            if (productImageService.migrate(id)) migrated++;
+        }
+        log.info("Migrated {} of {} inline product images to the image store", migrated, ids.size());
+    }
+}
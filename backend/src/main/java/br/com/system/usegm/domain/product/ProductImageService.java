@@ -0,0 +1,173 @@
+package br.com.system.usegm.domain.product;
+
+import br.com.system.usegm.exception.EntityNotFoundException;
+import br.com.system.usegm.exception.InvalidImageException;
+import br.com.system.usegm.infra.storage.ImageStore;
+import br.com.system.usegm.infra.storage.StoredImage;
+import br.com.system.usegm.infra.storage.ThumbnailService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Service
+@RequiredArgsConstructor
+public class ProductImageService {
+
+    private static final Pattern DATA_URL = Pattern.compile("^data:([^;,]*)(?:;[^;,]*)*;base64,(.*)$", Pattern.DOTALL);
+    // A imagem é servida pela própria origem da API sem autenticação: só formatos raster, nunca
+    // HTML ou SVG, que o navegador executaria
+    private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of("image/png", "image/jpeg", "image/gif", "image/webp");
+    private static final String UNKNOWN_CONTENT_TYPE = "application/octet-stream";
+
+    private final ImageStore imageStore;
+    private final ThumbnailService thumbnailService;
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache productCatalogCache;
+
+    /**
+     * Aplica a imagem recebida na requisição ao produto. Data URLs em base64 vão para o
+     * {@link ImageStore} e o produto guarda apenas o hash; a URL devolvida pela própria API
+     * mantém a imagem atual; qualquer outro valor é mantido como referência externa. Data URLs
+     * que não sejam PNG, JPEG, GIF ou WebP em base64 válido são recusadas com
+     * {@link InvalidImageException}.
+     */
+    public void apply(Product product, String image) {
+        if (image == null || image.isBlank()) {
+            clear(product);
+            return;
+        }
+
+        Matcher dataUrl = DATA_URL.matcher(image);
+        if (dataUrl.matches()) {
+            String contentType = dataUrl.group(1).strip().toLowerCase(Locale.ROOT);
+            if (!ALLOWED_CONTENT_TYPES.contains(contentType)) {
+                throw new InvalidImageException("Image must be PNG, JPEG, GIF or WebP");
+            }
+            String hash = imageStore.store(decode(dataUrl.group(2)));
+            product.setImageHash(hash);
+            product.setImageContentType(contentType);
+            product.setImage(null);
+            thumbnailService.generateAsync(hash);
+            return;
+        }
+
+        if (product.getImageHash() != null && product.getId() != null && image.contains(imagePath(product.getId()))) {
+            return;
+        }
+        clear(product);
+        product.setImage(image);
+    }
+
+    /**
+     * URL pública da imagem do produto, versionada pelo hash para permitir cache imutável.
+     * Produtos ainda não migrados devolvem o valor legado da coluna {@code image}.
+     */
+    public String imageUrl(Product product) {
+        return imageUrl(product.getId(), product.getImageHash(), product.getImage());
+    }
+
+    public String imageUrl(CatalogProduct product) {
+        return imageUrl(product.getId(), product.getImageHash(), product.getImage());
+    }
+
+    /**
+     * Imagem a ser servida para o produto. Com {@code size}, devolve a miniatura correspondente;
+     * enquanto ela não estiver pronta devolve a original sem cache imutável.
+     */
+    public StoredImage findImage(Long id, Integer size) {
+        Product product = findWithStoredImage(id);
+        String hash = product.getImageHash();
+        // Imagens gravadas antes da validação podem ter qualquer tipo: esses vão como binário genérico
+        String contentType = ALLOWED_CONTENT_TYPES.contains(product.getImageContentType())
+                ? product.getImageContentType()
+                : UNKNOWN_CONTENT_TYPE;
+        StoredImage original = new StoredImage(imageStore.resolve(hash), contentType, hash, true);
+        if (size == null) {
+            return original;
+        }
+
+        return thumbnailService.sizeFor(size)
+                .map(thumbnailSize -> thumbnailService.find(hash, thumbnailSize)
+                        .orElseGet(() -> new StoredImage(original.getPath(), original.getContentType(), hash, false)))
+                .orElse(original);
+    }
+
+    @Transactional
+    public Product findWithStoredImage(Long id) {
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
+        if (product.getImageHash() == null && product.getImage() != null) {
+            migrate(product);
+        }
+        if (product.getImageHash() == null || !imageStore.exists(product.getImageHash())) {
+            throw new EntityNotFoundException("Image not found for product with id: " + id);
+        }
+        return product;
+    }
+
+    @Transactional
+    public boolean migrate(Long id) {
+        return productRepository.findById(id)
+                .filter(product -> product.getImageHash() == null)
+                .map(this::migrate)
+                .orElse(false);
+    }
+
+    private boolean migrate(Product product) {
+        if (!DATA_URL.matcher(product.getImage()).matches()) return false;
+        try {
+            apply(product, product.getImage());
+        } catch (InvalidImageException e) {
+            // Fica como está na coluna legada; não é servida pelo endpoint de imagem
+            return false;
+        }
+        productRepository.save(product);
+        productCatalogCache.evict(product.getId());
+        return true;
+    }
+
+    private static byte[] decode(String base64) {
+        byte[] content;
+        try {
+            content = Base64.getMimeDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidImageException("Image is not valid base64");
+        }
+        // O decoder MIME ignora caracteres fora do alfabeto, então lixo vira imagem vazia
+        if (content.length == 0) {
+            throw new InvalidImageException("Image is empty");
+        }
+        return content;
+    }
+
+    private void clear(Product product) {
+        product.setImage(null);
+        product.setImageHash(null);
+        product.setImageContentType(null);
+    }
+
+    private String imageUrl(Long productId, String imageHash, String image) {
+        if (imageHash == null) {
+            return image;
+        }
+        UriComponentsBuilder builder = RequestContextHolder.getRequestAttributes() != null
+                ? ServletUriComponentsBuilder.fromCurrentContextPath()
+                : UriComponentsBuilder.newInstance();
+        return builder.path(imagePath(productId))
+                .queryParam("v", imageHash)
+                .toUriString();
+    }
+
+    private String imagePath(Long productId) {
+        return "/api/v1/products/" + productId + "/image";
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.system.usegm.domain.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Linha já validada de um arquivo de importação de produtos.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductImportRow {
+
+    private final long line;
+    private final String reference;
+    private final String name;
+    private final int quantity;
+    private final String image;
+}
@@ -0,0 +1,283 @@
+package br.com.system.usegm.domain.product;
+
+import br.com.system.usegm.domain.product.dto.ProductImportError;
+import br.com.system.usegm.domain.product.dto.ProductImportReport;
+import br.com.system.usegm.exception.InvalidImportFileException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Importação em massa de produtos a partir de CSV ou NDJSON. O arquivo é lido registro a registro e
+ * gravado em lotes de {@code api.import.products.batch-size} pelo {@link ProductImportWriter},
+ * então só um lote fica em memória. Produtos são identificados pela referência: existentes são
+ * atualizados, os demais criados. Linhas inválidas entram no relatório sem interromper o restante.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    public static final String CSV = "text/csv";
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final ProductImportWriter productImportWriter;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public ProductImportService(ProductImportWriter productImportWriter,
+                                ObjectMapper objectMapper,
+                                @Value("${api.import.products.batch-size:500}") int batchSize,
+                                @Value("${api.import.products.max-errors:1000}") int maxErrors) {
+        this.productImportWriter = productImportWriter;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public ProductImportReport importCsv(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new InvalidImportFileException("CSV file is empty");
+        }
+        char delimiter = header.indexOf(';') >= 0 && header.indexOf(',') < 0 ? ';' : ',';
+        CsvReader csv = new CsvReader(reader, delimiter);
+        Map<String, Integer> columns = csvColumns(csv.parse(stripBom(header)));
+
+        Import running = new Import();
+        while (true) {
+            String reference = null;
+            try {
+                List<String> values = csv.read();
+                if (values == null) break;
+                reference = column(values, columns, "reference");
+                running.add(toRow(csv.recordLine, reference,
+                        column(values, columns, "name"),
+                        column(values, columns, "quantity"),
+                        column(values, columns, "image")));
+            } catch (IllegalArgumentException e) {
+                running.fail(csv.recordLine, reference, e.getMessage());
+            }
+            running.received++;
+        }
+        return running.finish();
+    }
+
+    public ProductImportReport importNdjson(BufferedReader reader) throws IOException {
+        Import running = new Import();
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            running.received++;
+            String reference = null;
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                if (!node.isObject()) {
+                    throw new IllegalArgumentException("line is not a JSON object");
+                }
+                reference = text(node, "reference");
+                running.add(toRow(lineNumber, reference, text(node, "name"), text(node, "quantity"), text(node, "image")));
+            } catch (JsonProcessingException e) {
+                running.fail(lineNumber, null, "invalid JSON: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                running.fail(lineNumber, reference, e.getMessage());
+            }
+        }
+        return running.finish();
+    }
+
+    private ProductImportRow toRow(long line, String reference, String name, String quantity, String image) {
+        reference = reference == null ? null : reference.strip();
+        name = name == null ? null : name.strip();
+        if (reference == null || reference.isEmpty()) {
+            throw new IllegalArgumentException("reference is required");
+        }
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (reference.length() > MAX_TEXT_LENGTH || name.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("reference and name must have at most " + MAX_TEXT_LENGTH + " characters");
+        }
+
+        int parsedQuantity;
+        try {
+            parsedQuantity = Integer.parseInt(quantity == null ? "" : quantity.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantity must be an integer");
+        }
+        if (parsedQuantity < 0) {
+            throw new IllegalArgumentException("quantity must not be negative");
+        }
+        return new ProductImportRow(line, reference, name, parsedQuantity, image);
+    }
+
+    private Map<String, Integer> csvColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).strip().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("reference", "name", "quantity")) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidImportFileException("CSV header must contain the columns reference, name and quantity");
+            }
+        }
+        return columns;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= values.size() ? null : values.get(index);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String stripBom(String header) {
+        return header.startsWith("\uFEFF") ? header.substring(1) : header;
+    }
+
+    /**
+     * Leitor de registros RFC 4180: campos entre aspas podem conter o delimitador, aspas duplicadas
+     * e quebras de linha, e nesse caso o registro continua nas linhas seguintes do arquivo.
+     */
+    static final class CsvReader {
+
+        private final BufferedReader reader;
+        private final char delimiter;
+        // Linhas físicas lidas (o cabeçalho é a 1) e a linha em que começou o último registro
+        private long lineNumber = 1;
+        private long recordLine;
+
+        CsvReader(BufferedReader reader, char delimiter) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+        }
+
+        // Próximo registro, pulando linhas em branco; null no fim do arquivo
+        List<String> read() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) return null;
+                lineNumber++;
+            } while (line.isBlank());
+            recordLine = lineNumber;
+            return parse(line);
+        }
+
+        List<String> parse(String line) throws IOException {
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; ; i++) {
+                if (i == line.length()) {
+                    if (!quoted) break;
+                    String next = reader.readLine();
+                    if (next == null) {
+                        throw new IllegalArgumentException("unterminated quoted field");
+                    }
+                    lineNumber++;
+                    current.append('\n');
+                    line = next;
+                    i = -1;
+                    continue;
+                }
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"' && current.isEmpty()) {
+                    quoted = true;
+                } else if (c == delimiter) {
+                    values.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            values.add(current.toString());
+            return values;
+        }
+    }
+
+    /**
+     * Estado de uma importação em andamento: o lote corrente e os totais do relatório.
+     */
+    private class Import {
+
+        private final ProductImportReport report = new ProductImportReport();
+        private final List<ProductImportRow> batch = new ArrayList<>(batchSize);
+        private long received;
+
+        void add(ProductImportRow row) {
+            batch.add(row);
+            if (batch.size() >= batchSize) flush();
+        }
+
+        void fail(long line, String reference, String message) {
+            report.setFailed(report.getFailed() + 1);
+            if (report.getErrors().size() < maxErrors) {
+                report.getErrors().add(new ProductImportError(line, reference, message));
+            }
+        }
+
+        ProductImportReport finish() {
+            flush();
+            report.setReceived(received);
+            return report;
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) return;
+            try {
+                record(productImportWriter.write(batch));
+            } catch (RuntimeException e) {
+                // O lote inteiro foi desfeito: regrava linha a linha para isolar as que falham
+                log.debug("Import batch failed, retrying row by row", e);
+                for (ProductImportRow row : batch) {
+                    try {
+                        record(productImportWriter.write(List.of(row)));
+                    } catch (RuntimeException rowError) {
+                        fail(row.getLine(), row.getReference(), message(rowError));
+                    }
+                }
+            }
+            batch.clear();
+        }
+
+        private void record(ProductImportWriter.Result result) {
+            report.setCreated(report.getCreated() + result.getCreated());
+            report.setUpdated(report.getUpdated() + result.getUpdated());
+        }
+
+        private String message(RuntimeException e) {
+            return e instanceof DataAccessException dataAccess
+                    ? dataAccess.getMostSpecificCause().getMessage()
+                    : e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package br.com.system.usegm.domain.product;
+
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Grava um lote da importação em uma única transação. Os produtos já existentes (por referência)
+ * são travados e atualizados pelo Hibernate em batch no flush. Os novos entram em um único
+ * {@code INSERT ... ON CONFLICT (reference) DO UPDATE} sobre o índice único de
+ * {@link ProductReferenceIndex}: se outra importação criou a mesma referência depois da consulta,
+ * o comando não duplica o produto, apenas trava a linha dela, que segue pelo caminho de atualização
+ * (saldo e imagem como em qualquer produto existente).
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductImportWriter {
+
+    // O DO UPDATE não muda nada: só trava a linha concorrente e a devolve no RETURNING
+    private static final String UPSERT_SQL = """
+            INSERT INTO products (id, name, reference, quantity, image, image_hash, image_content_type, created_at)
+            SELECT u.id, u.name, u.reference, u.quantity, u.image, u.image_hash, u.image_content_type, ?
+            FROM unnest(?, ?, ?, ?, ?, ?, ?) AS u(id, name, reference, quantity, image, image_hash, image_content_type)
+            ON CONFLICT (reference) DO UPDATE SET reference = EXCLUDED.reference
+            RETURNING id, reference, xmax = 0 AS inserted
+            """;
+    private static final String NEXT_ID_BLOCKS_SQL = "SELECT nextval('products_seq') FROM generate_series(1, ?)";
+    // Incremento de products_seq (allocationSize de Product): cada nextval reserva os ids
+    // (valor - 49 .. valor), como no otimizador pooled que o Hibernate usa para a entidade
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private final ProductRepository productRepository;
+    private final ProductImageService productImageService;
+    private final ProductCatalogCache productCatalogCache;
+    private final EntityManager entityManager;
+    private final HotStockLedger hotStockLedger;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public Result write(List<ProductImportRow> rows) {
+        Set<String> references = rows.stream().map(ProductImportRow::getReference).collect(Collectors.toSet());
+        Map<String, Product> products = new HashMap<>();
+        List<Long> existingIds = new ArrayList<>();
+        for (Product product : productRepository.findAllByReferenceInOrderByIdAsc(references)) {
+            if (products.putIfAbsent(product.getReference(), product) == null) {
+                existingIds.add(product.getId());
+            }
+        }
+
+        // Ordenados por referência: importações concorrentes travam as linhas novas na mesma ordem
+        Map<String, Product> created = new TreeMap<>();
+        Map<String, List<ProductImportRow>> createdRows = new HashMap<>();
+        int updated = 0;
+        for (ProductImportRow row : rows) {
+            Product product = products.get(row.getReference());
+            if (product != null) {
+                update(product, row);
+                updated++;
+                continue;
+            }
+            product = created.computeIfAbsent(row.getReference(), reference -> {
+                Product draft = new Product();
+                draft.setReference(reference);
+                return draft;
+            });
+            createdRows.computeIfAbsent(row.getReference(), reference -> new ArrayList<>()).add(row);
+            product.setName(row.getName());
+            product.setQuantity(row.getQuantity());
+            // Sem imagem no arquivo, a imagem atual do produto é mantida
+            if (row.getImage() != null && !row.getImage().isBlank()) {
+                productImageService.apply(product, row.getImage());
+            }
+        }
+
+        List<Long> concurrentIds = new ArrayList<>();
+        if (!created.isEmpty()) {
+            for (Map.Entry<String, Long> conflict : insert(created).entrySet()) {
+                created.remove(conflict.getKey());
+                concurrentIds.add(conflict.getValue());
+            }
+        }
+        // Criados por outra transação depois da consulta: linhas do lote aplicadas como atualização
+        for (Product product : productRepository.findAllById(concurrentIds)) {
+            createdRows.get(product.getReference()).forEach(row -> update(product, row));
+            updated++;
+        }
+        // Com open-in-view o contexto de persistência dura a requisição inteira; sem o clear cada
+        // lote faria dirty checking de todos os produtos dos lotes anteriores
+        entityManager.flush();
+        entityManager.clear();
+
+        existingIds.forEach(productCatalogCache::evict);
+        concurrentIds.forEach(productCatalogCache::evict);
+        return new Result(created.size(), updated);
+    }
+
+    private void update(Product product, ProductImportRow row) {
+        product.setName(row.getName());
+        if (hotStockLedger.isHot(product.getId())) {
+            hotStockLedger.adjustTo(product.getId(), row.getQuantity());
+        } else {
+            product.setQuantity(row.getQuantity());
+        }
+        if (row.getImage() != null && !row.getImage().isBlank()) {
+            productImageService.apply(product, row.getImage());
+        }
+    }
+
+    /**
+     * Insere os produtos novos em um comando e preenche os ids dos inseridos. Devolve, por
+     * referência, o id das linhas que já existiam (criadas por uma transação concorrente).
+     */
+    private Map<String, Long> insert(Map<String, Product> created) {
+        int size = created.size();
+        Long[] ids = reserveIds(size);
+        String[] names = new String[size];
+        String[] references = new String[size];
+        Integer[] quantities = new Integer[size];
+        String[] images = new String[size];
+        String[] imageHashes = new String[size];
+        String[] imageContentTypes = new String[size];
+        int i = 0;
+        for (Product product : created.values()) {
+            names[i] = product.getName();
+            references[i] = product.getReference();
+            quantities[i] = product.getQuantity();
+            images[i] = product.getImage();
+            imageHashes[i] = product.getImageHash();
+            imageContentTypes[i] = product.getImageContentType();
+            i++;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Long> conflicts = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_SQL);
+            statement.setTimestamp(1, Timestamp.valueOf(now));
+            statement.setArray(2, connection.createArrayOf("int8", ids));
+            statement.setArray(3, connection.createArrayOf("text", names));
+            statement.setArray(4, connection.createArrayOf("text", references));
+            statement.setArray(5, connection.createArrayOf("int4", quantities));
+            statement.setArray(6, connection.createArrayOf("text", images));
+            statement.setArray(7, connection.createArrayOf("text", imageHashes));
+            statement.setArray(8, connection.createArrayOf("text", imageContentTypes));
+            return statement;
+        }, rs -> {
+            Product product = created.get(rs.getString("reference"));
+            if (rs.getBoolean("inserted")) {
+                product.setId(rs.getLong("id"));
+                product.setCreatedAt(now);
+            } else {
+                conflicts.put(product.getReference(), rs.getLong("id"));
+            }
+        });
+        return conflicts;
+    }
+
+    // Um nextval por bloco de 50 ids, não um por linha (que gastaria o bloco inteiro a cada produto)
+    private Long[] reserveIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+            for (Long high : jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Long.class, blocks)) {
+                for (long id = Math.max(1, high - ID_BLOCK_SIZE + 1); id <= high && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids.toArray(Long[]::new);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final int created;
+        private final int updated;
+    }
+}
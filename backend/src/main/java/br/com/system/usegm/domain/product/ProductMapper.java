@@ -0,0 +1,48 @@
+package br.com.system.usegm.domain.product;
+
+import br.com.system.usegm.domain.product.dto.ProductRequest;
+import br.com.system.usegm.domain.product.dto.ProductResponse;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Conversão explícita entre {@link Product} e seus DTOs, sem reflexão.
+ * Com {@code api.mapping.use-model-mapper=true} volta a delegar para o {@link ModelMapper}.
+ */
+@Component
+public class ProductMapper {
+
+    private final ModelMapper modelMapper;
+    private final boolean useModelMapper;
+
+    public ProductMapper(ModelMapper modelMapper, @Value("${api.mapping.use-model-mapper:false}") boolean useModelMapper) {
+        this.modelMapper = modelMapper;
+        this.useModelMapper = useModelMapper;
+    }
+
+    public ProductResponse toResponse(Product product) {
+        if (useModelMapper) {
+            return modelMapper.map(product, ProductResponse.class);
+        }
+        return new ProductResponse(
+                product.getId(),
+                product.getName(),
+                product.getReference(),
+                product.getQuantity(),
+                product.getImage()
+        );
+    }
+
+    public Product toEntity(ProductRequest productRequest) {
+        if (useModelMapper) {
+            return modelMapper.map(productRequest, Product.class);
+        }
+        Product product = new Product();
+        product.setName(productRequest.getName());
+        product.setReference(productRequest.getReference());
+        product.setQuantity(productRequest.getQuantity());
+        product.setImage(productRequest.getImage());
+        return product;
+    }
+}
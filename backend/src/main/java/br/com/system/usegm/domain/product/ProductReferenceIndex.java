@@ -0,0 +1,46 @@
+package br.com.system.usegm.domain.product;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Índice único em {@code products.reference}: é o alvo do {@code ON CONFLICT} da importação
+ * ({@link ProductImportWriter}) e impede que importações concorrentes criem a mesma referência
+ * duas vezes. Substitui o índice simples antigo. Se o banco já tiver referências repetidas o
+ * índice não é criado (a importação falha até que elas sejam corrigidas) e a subida avisa quais são.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class ProductReferenceIndex implements InitializingBean {
+
+    private static final String DUPLICATES_SQL = """
+            SELECT reference FROM products WHERE reference IS NOT NULL
+            GROUP BY reference HAVING count(*) > 1 ORDER BY reference LIMIT 20
+            """;
+    private static final String[] DDL = {
+            "CREATE UNIQUE INDEX IF NOT EXISTS uk_products_reference ON products (reference)",
+            "DROP INDEX IF EXISTS idx_products_reference"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        List<String> duplicates = jdbcTemplate.queryForList(DUPLICATES_SQL, String.class);
+        if (!duplicates.isEmpty()) {
+            log.warn("Unique index on products.reference not created, duplicated references: {}", duplicates);
+            return;
+        }
+        for (String ddl : DDL) {
+            jdbcTemplate.execute(ddl);
+        }
+    }
+}
@@ -1,15 +1,58 @@
 package br.com.system.usegm.domain.product;
 
+import br.com.system.usegm.infra.persistence.VersionStamp;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT p FROM Product p WHERE (:reference IS NULL OR p.reference LIKE %:reference%) ORDER BY p.createdAt DESC")
     Page<Product> findAllByReference(@Param("reference") String reference, Pageable pageable);
-}
\ No newline at end of file
+
+    @Query("SELECT count(p) AS count, coalesce(max(p.version), 0) AS maxVersion FROM Product p " +
+            "WHERE (:reference IS NULL OR p.reference LIKE %:reference%)")
+    VersionStamp findListVersion(@Param("reference") String reference);
+
+    // Atendido pelo btree idx_products_reference_prefix; a referência exata vem primeiro
+    @Query(value = "SELECT p.* FROM products p WHERE lower(p.reference) LIKE lower(:prefix) ORDER BY lower(p.reference) LIMIT :limit",
+            nativeQuery = true)
+    List<Product> searchByReferencePrefix(@Param("prefix") String prefix, @Param("limit") int limit);
+
+    @Query(value = "SELECT p.* FROM products p WHERE p.reference ILIKE :contains OR p.name ILIKE :contains ORDER BY p.id LIMIT :limit",
+            nativeQuery = true)
+    List<Product> searchBySubstring(@Param("contains") String contains, @Param("limit") int limit);
+
+    // <% usa pg_trgm.word_similarity_threshold, ajustado por setWordSimilarityThreshold
+    @Query(value = """
+            SELECT p.* FROM products p
+            WHERE :term <% p.reference OR :term <% p.name
+            ORDER BY greatest(word_similarity(:term, p.reference), word_similarity(:term, p.name)) DESC, p.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Product> searchBySimilarity(@Param("term") String term, @Param("limit") int limit);
+
+    // Vale até o fim da transação corrente
+    @Query(value = "SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)", nativeQuery = true)
+    String setWordSimilarityThreshold(@Param("threshold") String threshold);
+
+    boolean existsByReference(String reference);
+
+    boolean existsByReferenceAndIdNot(String reference, Long id);
+
+    // A importação trava os existentes em ordem de id: lotes concorrentes com as mesmas referências se enfileiram
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Product> findAllByReferenceInOrderByIdAsc(Collection<String> references);
+
+    @Query("SELECT p.id FROM Product p WHERE p.imageHash IS NULL AND p.image LIKE 'data:%'")
+    List<Long> findIdsWithInlineImage();
+}
@@ -0,0 +1,51 @@
+package br.com.system.usegm.domain.product;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cria os índices da busca de produtos: um btree de prefixo em {@code lower(reference)} e, com
+ * a extensão {@code pg_trgm}, índices GIN de trigramas em {@code reference} e {@code name}, que
+ * também atendem o {@code LIKE %ref%} da listagem. O JPA não expressa esses índices, por isso
+ * eles são criados aqui depois do {@code ddl-auto}. Sem permissão para criar a extensão, a
+ * busca continua por prefixo e trecho, sem a camada de similaridade.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex implements ApplicationRunner {
+
+    private static final String PREFIX_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_products_reference_prefix ON products (lower(reference) text_pattern_ops)";
+    private static final String[] TRIGRAM_DDL = {
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_products_reference_trgm ON products USING gin (reference gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING gin (name gin_trgm_ops)"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean trigramAvailable;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbcTemplate.execute(PREFIX_INDEX);
+        try {
+            for (String ddl : TRIGRAM_DDL) {
+                jdbcTemplate.execute(ddl);
+            }
+            trigramAvailable = true;
+        } catch (DataAccessException e) {
+            log.warn("Trigram product search unavailable: {}", e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    public boolean isTrigramAvailable() {
+        return trigramAvailable;
+    }
+}
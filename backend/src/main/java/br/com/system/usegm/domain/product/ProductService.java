@@ -1,49 +1,141 @@
 package br.com.system.usegm.domain.product;
 
+import br.com.system.usegm.config.MetricsConfig;
 import br.com.system.usegm.domain.product.dto.ProductRequest;
 import br.com.system.usegm.domain.product.dto.ProductResponse;
 import br.com.system.usegm.exception.EntityNotFoundException;
-import lombok.AllArgsConstructor;
-import org.modelmapper.ModelMapper;
+import br.com.system.usegm.exception.ReferenceAlreadyExistsException;
+import br.com.system.usegm.infra.persistence.VersionStamp;
+import br.com.system.usegm.infra.web.EntityTags;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
-@AllArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
+@RequiredArgsConstructor
 public class ProductService {
 
+    public static final int MAX_SEARCH_LIMIT = 50;
+
     private final ProductRepository productRepository;
-    private final ModelMapper mapper;
+    private final ProductImageService productImageService;
+    private final ProductMapper productMapper;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCatalogCache productCatalogCache;
+    private final HotStockLedger hotStockLedger;
+
+    // Menor = mais tolerante a erros de digitação
+    @Value("${api.search.products.similarity-threshold:0.4}")
+    private String similarityThreshold;
 
     public Page<ProductResponse> getAllProducts(String reference, Pageable pageable) {
         Page<Product> productPage = productRepository.findAllByReference(reference, pageable);
-        return productPage.map(product -> mapper.map(product, ProductResponse.class));
+        return productPage.map(this::toResponse);
+    }
+
+    /**
+     * ETag da listagem: quantidade e maior versão dos produtos do filtro. O saldo dos produtos
+     * quentes ({@link HotStockLedger}) só muda a versão quando chega ao banco, no próximo flush.
+     */
+    public String getProductsTag(String reference) {
+        VersionStamp stamp = productRepository.findListVersion(reference);
+        return EntityTags.of("products", stamp.getCount(), stamp.getMaxVersion());
+    }
+
+    /**
+     * Busca para o seletor de produtos, em camadas: prefixo da referência, trecho da referência ou
+     * do nome e, só se nenhuma delas encontrar nada, similaridade de trigramas (tolera erros de
+     * digitação). As camadas baratas atendem quase todas as teclas digitadas.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductResponse> search(String term, int limit) {
+        String normalized = term == null ? "" : term.strip();
+        if (normalized.isEmpty()) return List.of();
+
+        int boundedLimit = Math.clamp(limit, 1, MAX_SEARCH_LIMIT);
+        String escaped = escapeLike(normalized);
+        Map<Long, Product> found = new LinkedHashMap<>();
+        addAll(found, productRepository.searchByReferencePrefix(escaped + "%", boundedLimit), boundedLimit);
+        if (found.size() < boundedLimit) {
+            addAll(found, productRepository.searchBySubstring("%" + escaped + "%", boundedLimit), boundedLimit);
+        }
+        if (found.isEmpty() && productSearchIndex.isTrigramAvailable()) {
+            productRepository.setWordSimilarityThreshold(similarityThreshold);
+            addAll(found, productRepository.searchBySimilarity(normalized, boundedLimit), boundedLimit);
+        }
+        return found.values().stream().map(this::toResponse).toList();
     }
 
     public ProductResponse createProduct(ProductRequest productRequest) {
-        Product product = mapper.map(productRequest, Product.class);
+        validateReferenceUniqueness(productRequest.getReference(), null);
+        Product product = productMapper.toEntity(productRequest);
+        productImageService.apply(product, productRequest.getImage());
         product.setCreatedAt(LocalDateTime.now());
         Product savedProduct = productRepository.save(product);
-        return mapper.map(savedProduct, ProductResponse.class);
+        return toResponse(savedProduct);
     }
 
+    @Transactional
     public ProductResponse updateProduct(Long id, ProductRequest productRequest) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
+        validateReferenceUniqueness(productRequest.getReference(), id);
 
         existingProduct.setName(productRequest.getName());
         existingProduct.setReference(productRequest.getReference());
-        existingProduct.setQuantity(productRequest.getQuantity());
-        existingProduct.setImage(productRequest.getImage());
+        if (hotStockLedger.isHot(id)) {
+            hotStockLedger.adjustTo(id, productRequest.getQuantity());
+        } else {
+            existingProduct.setQuantity(productRequest.getQuantity());
+        }
+        productImageService.apply(existingProduct, productRequest.getImage());
 
         Product updatedProduct = productRepository.save(existingProduct);
-        return mapper.map(updatedProduct, ProductResponse.class);
+        productCatalogCache.evict(id);
+        return toResponse(updatedProduct);
     }
 
     public void deleteById(Long id) {
         productRepository.deleteById(id);
+        productCatalogCache.evict(id);
+    }
+
+    // A referência é única no banco (ProductReferenceIndex); aqui o conflito vira 409 em vez de erro de constraint
+    private void validateReferenceUniqueness(String reference, Long id) {
+        if (reference == null) return;
+        boolean taken = id == null
+                ? productRepository.existsByReference(reference)
+                : productRepository.existsByReferenceAndIdNot(reference, id);
+        if (taken) {
+            throw new ReferenceAlreadyExistsException("Reference already exists: " + reference);
+        }
+    }
+
+    private static void addAll(Map<Long, Product> found, List<Product> products, int limit) {
+        for (Product product : products) {
+            if (found.size() == limit) return;
+            found.putIfAbsent(product.getId(), product);
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private ProductResponse toResponse(Product product) {
+        ProductResponse response = productMapper.toResponse(product);
+        response.setImage(productImageService.imageUrl(product));
+        hotStockLedger.available(product.getId()).ifPresent(response::setQuantity);
+        return response;
     }
 }
@@ -0,0 +1,15 @@
+package br.com.system.usegm.domain.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportError {
+
+    private long line;
+    private String reference;
+    private String message;
+}
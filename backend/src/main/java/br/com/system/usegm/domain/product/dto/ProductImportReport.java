@@ -0,0 +1,21 @@
+package br.com.system.usegm.domain.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportReport {
+
+    private long received;
+    private long created;
+    private long updated;
+    private long failed;
+    // Limitada por api.import.products.max-errors; "failed" traz o total
+    private List<ProductImportError> errors = new ArrayList<>();
+}
@@ -0,0 +1,98 @@
+package br.com.system.usegm.domain.summary;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cria as tabelas de resumo dos pedidos e, quando ainda estão vazias (primeira subida com
+ * pedidos já existentes), preenche-as a partir de {@code orders} e {@code order_products}.
+ * Depois disso elas só mudam pelos deltas gravados junto com a escrita dos pedidos e consolidados
+ * pelo {@link OrderSummaryService}. Roda na criação do contexto, antes de qualquer serviço de
+ * pedidos existir. Pedidos arquivados continuam nos resumos, por isso o recálculo também lê as
+ * tabelas de arquivo.
+ */
+@Slf4j
+@Component
+@DependsOn({"entityManagerFactory", "orderArchiveSchema"})
+@RequiredArgsConstructor
+public class OrderSummarySchema implements InitializingBean {
+
+    private static final String[] DDL = {
+            "CREATE TABLE IF NOT EXISTS order_status_summary (status varchar(32) PRIMARY KEY, orders bigint NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS shipping_type_summary (type varchar(32) PRIMARY KEY, orders bigint NOT NULL, units bigint NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS product_daily_sales (day date NOT NULL, product_id bigint NOT NULL, units bigint NOT NULL, PRIMARY KEY (day, product_id))",
+            "CREATE INDEX IF NOT EXISTS idx_product_daily_sales_product_day ON product_daily_sales (product_id, day)",
+            "CREATE TABLE IF NOT EXISTS order_status_summary_delta (id bigserial PRIMARY KEY, status varchar(32) NOT NULL, orders bigint NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS shipping_type_summary_delta (id bigserial PRIMARY KEY, type varchar(32) NOT NULL, orders bigint NOT NULL, units bigint NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS product_daily_sales_delta (id bigserial PRIMARY KEY, day date NOT NULL, product_id bigint NOT NULL, units bigint NOT NULL)"
+    };
+    private static final String[] REBUILD = {
+            // Bloqueia escritas em pedidos enquanto recalcula, para nenhum delta se perder no meio
+            "LOCK TABLE orders, order_products, orders_archive, order_products_archive IN SHARE MODE",
+            "DELETE FROM order_status_summary",
+            "DELETE FROM shipping_type_summary",
+            "DELETE FROM product_daily_sales",
+            "DELETE FROM order_status_summary_delta",
+            "DELETE FROM shipping_type_summary_delta",
+            "DELETE FROM product_daily_sales_delta",
+            """
+            INSERT INTO order_status_summary (status, orders)
+            SELECT status, count(*)
+            FROM (SELECT status FROM orders UNION ALL SELECT status FROM orders_archive) o
+            WHERE status IS NOT NULL GROUP BY status
+            """,
+            """
+            INSERT INTO shipping_type_summary (type, orders, units)
+            SELECT o.type, count(*), coalesce(sum(l.units), 0)
+            FROM (SELECT id, type FROM orders UNION ALL SELECT id, type FROM orders_archive) o
+            LEFT JOIN (SELECT order_id, sum(quantity) AS units
+                       FROM (SELECT order_id, quantity FROM order_products
+                             UNION ALL SELECT order_id, quantity FROM order_products_archive) lines
+                       GROUP BY order_id) l ON l.order_id = o.id
+            WHERE o.type IS NOT NULL
+            GROUP BY o.type
+            """,
+            """
+            INSERT INTO product_daily_sales (day, product_id, units)
+            SELECT day, product_id, sum(quantity)
+            FROM (SELECT CAST(o.created_at AS date) AS day, op.product_id, op.quantity
+                  FROM order_products op
+                  JOIN orders o ON o.id = op.order_id
+                  UNION ALL
+                  SELECT CAST(created_at AS date), product_id, quantity
+                  FROM order_products_archive) sales
+            WHERE day IS NOT NULL
+            GROUP BY day, product_id
+            """
+    };
+
+    private static final String EMPTY_SQL =
+            "SELECT NOT EXISTS (SELECT 1 FROM order_status_summary) AND NOT EXISTS (SELECT 1 FROM order_status_summary_delta)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String ddl : DDL) {
+                jdbcTemplate.execute(ddl);
+            }
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(EMPTY_SQL, Boolean.class))) {
+                rebuild();
+            }
+        });
+    }
+
+    private void rebuild() {
+        for (String sql : REBUILD) {
+            jdbcTemplate.execute(sql);
+        }
+        log.info("Order summaries rebuilt from orders");
+    }
+}
@@ -0,0 +1,308 @@
+package br.com.system.usegm.domain.summary;
+
+import br.com.system.usegm.domain.order.Order;
+import br.com.system.usegm.domain.order.OrderProduct;
+import br.com.system.usegm.domain.order.OrderStatusEnum;
+import br.com.system.usegm.domain.order.embeddable.ShippingTypeEnum;
+import br.com.system.usegm.domain.product.CatalogProduct;
+import br.com.system.usegm.domain.product.ProductCatalogCache;
+import br.com.system.usegm.domain.summary.dto.ProductSalesSummary;
+import br.com.system.usegm.domain.summary.dto.ShippingTypeSummary;
+import br.com.system.usegm.domain.summary.dto.StatusSummary;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumos de pedidos mantidos por delta: contagem por status, pedidos e unidades por tipo de
+ * envio e unidades vendidas por produto e dia (dia de criação do pedido). Quem escreve pedidos
+ * tira um {@link Snapshot} antes e depois da mudança e chama {@link #apply} na mesma transação;
+ * a diferença entre os dois vira linhas novas nas tabelas {@code *_delta}, o que já cobre o
+ * estorno na exclusão e na troca de linhas. Só INSERTs: pedidos concorrentes não disputam a
+ * linha do status ou do tipo de envio. A cada {@code rollup-interval} os deltas são somados às
+ * tabelas de resumo e apagados no mesmo comando; as leituras somam resumo e deltas restantes e
+ * custam o número de buckets mais os deltas ainda não consolidados, não o número de pedidos.
+ */
+@Slf4j
+@Service
+@DependsOn("orderSummarySchema")
+public class OrderSummaryService implements InitializingBean, DisposableBean {
+
+    private static final String INSERT_STATUS_SQL = "INSERT INTO order_status_summary_delta (status, orders) VALUES (?, ?)";
+    private static final String INSERT_SHIPPING_SQL = "INSERT INTO shipping_type_summary_delta (type, orders, units) VALUES (?, ?, ?)";
+    private static final String INSERT_PRODUCT_SQL = "INSERT INTO product_daily_sales_delta (day, product_id, units) VALUES (?, ?, ?)";
+    private static final String[] ROLLUP_SQL = {
+            """
+            WITH moved AS (
+                DELETE FROM order_status_summary_delta
+                WHERE id IN (SELECT id FROM order_status_summary_delta ORDER BY id LIMIT ?)
+                RETURNING status, orders
+            )
+            INSERT INTO order_status_summary (status, orders)
+            SELECT status, sum(orders) FROM moved GROUP BY status
+            ON CONFLICT (status) DO UPDATE SET orders = order_status_summary.orders + EXCLUDED.orders
+            """,
+            """
+            WITH moved AS (
+                DELETE FROM shipping_type_summary_delta
+                WHERE id IN (SELECT id FROM shipping_type_summary_delta ORDER BY id LIMIT ?)
+                RETURNING type, orders, units
+            )
+            INSERT INTO shipping_type_summary (type, orders, units)
+            SELECT type, sum(orders), sum(units) FROM moved GROUP BY type
+            ON CONFLICT (type) DO UPDATE SET orders = shipping_type_summary.orders + EXCLUDED.orders,
+                                             units = shipping_type_summary.units + EXCLUDED.units
+            """,
+            """
+            WITH moved AS (
+                DELETE FROM product_daily_sales_delta
+                WHERE id IN (SELECT id FROM product_daily_sales_delta ORDER BY id LIMIT ?)
+                RETURNING day, product_id, units
+            )
+            INSERT INTO product_daily_sales (day, product_id, units)
+            SELECT day, product_id, sum(units) FROM moved GROUP BY day, product_id
+            ON CONFLICT (day, product_id) DO UPDATE SET units = product_daily_sales.units + EXCLUDED.units
+            """
+    };
+    private static final String STATUS_SQL = """
+            SELECT status, sum(orders) AS orders
+            FROM (SELECT status, orders FROM order_status_summary
+                  UNION ALL SELECT status, orders FROM order_status_summary_delta) s
+            GROUP BY status ORDER BY status
+            """;
+    private static final String SHIPPING_SQL = """
+            SELECT type, sum(orders) AS orders, sum(units) AS units
+            FROM (SELECT type, orders, units FROM shipping_type_summary
+                  UNION ALL SELECT type, orders, units FROM shipping_type_summary_delta) s
+            GROUP BY type ORDER BY type
+            """;
+    private static final String SALES_SQL = """
+            SELECT day, product_id, sum(units) AS units
+            FROM (SELECT day, product_id, units FROM product_daily_sales WHERE %1$s
+                  UNION ALL SELECT day, product_id, units FROM product_daily_sales_delta WHERE %1$s) s
+            GROUP BY day, product_id HAVING sum(units) <> 0 ORDER BY day, product_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductCatalogCache productCatalogCache;
+    private final Duration rollupInterval;
+    private final int chunkSize;
+    private ScheduledExecutorService rollup;
+
+    public OrderSummaryService(JdbcTemplate jdbcTemplate,
+                               ProductCatalogCache productCatalogCache,
+                               @Value("${api.orders.summary.rollup-interval:30s}") Duration rollupInterval,
+                               @Value("${api.orders.summary.chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productCatalogCache = productCatalogCache;
+        this.rollupInterval = rollupInterval;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rollup = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("order-summary-rollup-"));
+        rollup.scheduleWithFixedDelay(this::rollupQuietly, rollupInterval.toMillis(), rollupInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (rollup != null) rollup.shutdownNow();
+    }
+
+    public Snapshot snapshot(Order order) {
+        Map<Long, Long> units = new HashMap<>();
+        for (OrderProduct line : order.getOrderProducts()) {
+            units.merge(line.getProduct().getId(), (long) line.getQuantity(), Long::sum);
+        }
+        return new Snapshot(
+                order.getStatus(),
+                order.getShippingDetails() == null ? null : order.getShippingDetails().getType(),
+                order.getCreatedAt() == null ? null : order.getCreatedAt().toLocalDate(),
+                units);
+    }
+
+    /**
+     * Aplica a diferença entre dois estados de um pedido: {@code before} nulo para criação,
+     * {@code after} nulo para exclusão.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Snapshot before, Snapshot after) {
+        Map<OrderStatusEnum, Long> statuses = new EnumMap<>(OrderStatusEnum.class);
+        Map<ShippingTypeEnum, long[]> shipping = new EnumMap<>(ShippingTypeEnum.class);
+        Map<LocalDate, Map<Long, Long>> sales = new TreeMap<>();
+
+        if (before != null) collect(before, -1, statuses, shipping, sales);
+        if (after != null) collect(after, 1, statuses, shipping, sales);
+        write(statuses, shipping, sales);
+    }
+
+    /**
+     * Criação de um lote de pedidos (intake em grupo): os deltas de todos são somados e vão ao
+     * banco em um único conjunto de INSERTs.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyCreated(Collection<Snapshot> created) {
+        Map<OrderStatusEnum, Long> statuses = new EnumMap<>(OrderStatusEnum.class);
+        Map<ShippingTypeEnum, long[]> shipping = new EnumMap<>(ShippingTypeEnum.class);
+        Map<LocalDate, Map<Long, Long>> sales = new TreeMap<>();
+        created.forEach(after -> collect(after, 1, statuses, shipping, sales));
+        write(statuses, shipping, sales);
+    }
+
+    private void write(Map<OrderStatusEnum, Long> statuses, Map<ShippingTypeEnum, long[]> shipping, Map<LocalDate, Map<Long, Long>> sales) {
+        insertStatuses(statuses);
+
+        List<Object[]> shippingRows = new ArrayList<>();
+        shipping.forEach((type, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) shippingRows.add(new Object[]{type.name(), delta[0], delta[1]});
+        });
+        if (!shippingRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SHIPPING_SQL, shippingRows);
+        }
+
+        List<Object[]> salesRows = new ArrayList<>();
+        sales.forEach((day, products) -> products.forEach((productId, units) -> {
+            if (units != 0) salesRows.add(new Object[]{Date.valueOf(day), productId, units});
+        }));
+        if (!salesRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, salesRows);
+        }
+    }
+
+    /**
+     * Troca de status feita fora das entidades (em massa): {@code previous} traz quantos
+     * pedidos saíram de cada status para {@code status}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyStatusChange(Map<OrderStatusEnum, Long> previous, OrderStatusEnum status) {
+        Map<OrderStatusEnum, Long> statuses = new EnumMap<>(OrderStatusEnum.class);
+        previous.forEach((from, count) -> {
+            statuses.merge(from, -count, Long::sum);
+            statuses.merge(status, count, Long::sum);
+        });
+        insertStatuses(statuses);
+    }
+
+    /**
+     * Soma os deltas às tabelas de resumo, em comandos de até {@code chunk-size} linhas que apagam
+     * os deltas e atualizam o resumo de uma vez (uma leitura nunca vê os dois ou nenhum). Só o
+     * rollup escreve nas tabelas de resumo. Devolve quantos deltas foram consolidados.
+     */
+    public int rollup() {
+        int total = 0;
+        for (String sql : ROLLUP_SQL) {
+            int rolled;
+            do {
+                rolled = jdbcTemplate.update(sql, chunkSize);
+                total += rolled;
+            } while (rolled > 0);
+        }
+        return total;
+    }
+
+    private void rollupQuietly() {
+        try {
+            rollup();
+        } catch (RuntimeException e) {
+            log.warn("Order summary rollup failed", e);
+        }
+    }
+
+    public List<StatusSummary> getStatusSummary() {
+        return jdbcTemplate.query(STATUS_SQL,
+                (rs, i) -> new StatusSummary(OrderStatusEnum.valueOf(rs.getString("status")), rs.getLong("orders")));
+    }
+
+    public List<ShippingTypeSummary> getShippingTypeSummary() {
+        return jdbcTemplate.query(SHIPPING_SQL,
+                (rs, i) -> new ShippingTypeSummary(ShippingTypeEnum.valueOf(rs.getString("type")),
+                        rs.getLong("orders"), rs.getLong("units")));
+    }
+
+    public List<ProductSalesSummary> getProductSales(LocalDate from, LocalDate to, Long productId) {
+        List<ProductSalesSummary> sales = productId == null
+                ? jdbcTemplate.query(SALES_SQL.formatted("day BETWEEN ? AND ?"),
+                (rs, i) -> toProductSales(rs.getDate("day"), rs.getLong("product_id"), rs.getLong("units")),
+                Date.valueOf(from), Date.valueOf(to), Date.valueOf(from), Date.valueOf(to))
+                : jdbcTemplate.query(SALES_SQL.formatted("product_id = ? AND day BETWEEN ? AND ?"),
+                (rs, i) -> toProductSales(rs.getDate("day"), rs.getLong("product_id"), rs.getLong("units")),
+                productId, Date.valueOf(from), Date.valueOf(to), productId, Date.valueOf(from), Date.valueOf(to));
+
+        Map<Long, CatalogProduct> products = productCatalogCache.getAll(sales.stream().map(ProductSalesSummary::getProductId).distinct().toList());
+        sales.forEach(sale -> {
+            CatalogProduct product = products.get(sale.getProductId());
+            if (product != null) {
+                sale.setReference(product.getReference());
+                sale.setName(product.getName());
+            }
+        });
+        return sales;
+    }
+
+    private static ProductSalesSummary toProductSales(Date day, long productId, long units) {
+        return new ProductSalesSummary(day.toLocalDate(), productId, null, null, units);
+    }
+
+    private void insertStatuses(Map<OrderStatusEnum, Long> statuses) {
+        List<Object[]> rows = new ArrayList<>();
+        statuses.forEach((status, delta) -> {
+            if (delta != 0) rows.add(new Object[]{status.name(), delta});
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_STATUS_SQL, rows);
+        }
+    }
+
+    private static void collect(Snapshot snapshot, int sign,
+                                Map<OrderStatusEnum, Long> statuses,
+                                Map<ShippingTypeEnum, long[]> shipping,
+                                Map<LocalDate, Map<Long, Long>> sales) {
+        long units = snapshot.getUnitsByProduct().values().stream().mapToLong(Long::longValue).sum();
+        if (snapshot.getStatus() != null) {
+            statuses.merge(snapshot.getStatus(), (long) sign, Long::sum);
+        }
+        if (snapshot.getShippingType() != null) {
+            long[] delta = shipping.computeIfAbsent(snapshot.getShippingType(), type -> new long[2]);
+            delta[0] += sign;
+            delta[1] += sign * units;
+        }
+        if (snapshot.getDay() != null) {
+            Map<Long, Long> day = sales.computeIfAbsent(snapshot.getDay(), d -> new TreeMap<>());
+            snapshot.getUnitsByProduct().forEach((productId, quantity) -> day.merge(productId, sign * quantity, Long::sum));
+        }
+    }
+
+    // Parte de um pedido que entra nos resumos
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final OrderStatusEnum status;
+        private final ShippingTypeEnum shippingType;
+        private final LocalDate day;
+        private final Map<Long, Long> unitsByProduct;
+    }
+}
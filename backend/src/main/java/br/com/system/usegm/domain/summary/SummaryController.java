@@ -0,0 +1,45 @@
+package br.com.system.usegm.domain.summary;
+
+import br.com.system.usegm.domain.summary.dto.ProductSalesSummary;
+import br.com.system.usegm.domain.summary.dto.ShippingTypeSummary;
+import br.com.system.usegm.domain.summary.dto.StatusSummary;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/summary")
+@AllArgsConstructor
+public class SummaryController {
+
+    private final OrderSummaryService orderSummaryService;
+
+    @GetMapping("/orders/status")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<List<StatusSummary>> getOrdersByStatus() {
+        return ResponseEntity.ok(orderSummaryService.getStatusSummary());
+    }
+
+    @GetMapping("/orders/shipping-type")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<List<ShippingTypeSummary>> getOrdersByShippingType() {
+        return ResponseEntity.ok(orderSummaryService.getShippingTypeSummary());
+    }
+
+    // Unidades vendidas por produto e dia de criação do pedido; from e to são inclusivos
+    @GetMapping("/products/sales")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<List<ProductSalesSummary>> getProductSales(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                     @RequestParam(required = false) Long productId) {
+        return ResponseEntity.ok(orderSummaryService.getProductSales(from, to, productId));
+    }
+}
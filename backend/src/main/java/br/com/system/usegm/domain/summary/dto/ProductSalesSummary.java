@@ -0,0 +1,19 @@
+package br.com.system.usegm.domain.summary.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesSummary {
+
+    private LocalDate day;
+    private Long productId;
+    private String reference;
+    private String name;
+    private long units;
+}
@@ -0,0 +1,16 @@
+package br.com.system.usegm.domain.summary.dto;
+
+import br.com.system.usegm.domain.order.embeddable.ShippingTypeEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShippingTypeSummary {
+
+    private ShippingTypeEnum type;
+    private long orders;
+    private long units;
+}
@@ -0,0 +1,15 @@
+package br.com.system.usegm.domain.summary.dto;
+
+import br.com.system.usegm.domain.order.OrderStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusSummary {
+
+    private OrderStatusEnum status;
+    private long orders;
+}
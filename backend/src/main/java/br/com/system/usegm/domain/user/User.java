@@ -6,6 +6,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
+
 @Entity
 @Table(name = "users")
 @Getter
@@ -20,4 +22,6 @@ public class User {
     private String email;
     private String password;
     private String role;
+    // Última troca de perfil: tokens emitidos antes dela não valem pela claim "role" em nenhuma instância
+    private Instant rolesChangedAt;
 }
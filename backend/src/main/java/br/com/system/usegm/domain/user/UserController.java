@@ -1,15 +1,28 @@
 package br.com.system.usegm.domain.user;
 
+import br.com.system.usegm.domain.user.payload.RoleUpdateDTO;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/v1/user")
+@RequiredArgsConstructor
 public class UserController {
+
+    private final UserService userService;
+
     @GetMapping
     public ResponseEntity<String> getUser(){
         return ResponseEntity.ok("sucesso!");
     }
+
+    @PatchMapping("/{id}/role")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<Void> changeRole(@PathVariable String id, @RequestBody @Valid RoleUpdateDTO roleUpdateDTO) {
+        userService.changeRole(id, roleUpdateDTO.getRole());
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,33 @@
+package br.com.system.usegm.domain.user;
+
+import br.com.system.usegm.domain.user.payload.RegisterRequestDTO;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Conversão explícita do cadastro para {@link User}, sem reflexão.
+ * Com {@code api.mapping.use-model-mapper=true} volta a delegar para o {@link ModelMapper}.
+ */
+@Component
+public class UserMapper {
+
+    private final ModelMapper modelMapper;
+    private final boolean useModelMapper;
+
+    public UserMapper(ModelMapper modelMapper, @Value("${api.mapping.use-model-mapper:false}") boolean useModelMapper) {
+        this.modelMapper = modelMapper;
+        this.useModelMapper = useModelMapper;
+    }
+
+    public User toEntity(RegisterRequestDTO registerRequestDTO) {
+        if (useModelMapper) {
+            return modelMapper.map(registerRequestDTO, User.class);
+        }
+        User user = new User();
+        user.setName(registerRequestDTO.getName());
+        user.setEmail(registerRequestDTO.getEmail());
+        user.setPassword(registerRequestDTO.getPassword());
+        return user;
+    }
+}
@@ -1,7 +1,10 @@
 package br.com.system.usegm.domain.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, String> {
@@ -9,4 +12,6 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     boolean existsByEmail(String email);
 
+    @Query("SELECT u.rolesChangedAt FROM User u WHERE u.email = :email")
+    Optional<Instant> findRolesChangedAtByEmail(@Param("email") String email);
 }
@@ -1,32 +1,39 @@
 package br.com.system.usegm.domain.user;
 
+import br.com.system.usegm.config.MetricsConfig;
 import br.com.system.usegm.domain.user.payload.LoginRequestDTO;
 import br.com.system.usegm.domain.user.payload.RegisterRequestDTO;
 import br.com.system.usegm.domain.user.payload.RegisterResponseDTO;
 import br.com.system.usegm.domain.user.payload.TokenResponseDTO;
 import br.com.system.usegm.exception.EmailAlreadyExistsException;
 import br.com.system.usegm.exception.EntityNotFoundException;
+import br.com.system.usegm.infra.security.PasswordHashingService;
 import br.com.system.usegm.infra.security.TokenService;
+import br.com.system.usegm.infra.security.UserPrincipalCache;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository repository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final UserRepository userRepository;
     private final TokenService tokenService;
-    private final ModelMapper mapper;
+    private final UserMapper userMapper;
+    private final UserPrincipalCache userPrincipalCache;
 
 
     public RegisterResponseDTO registerUser(RegisterRequestDTO registerRequestDTO) {
         validateEmailUniqueness(registerRequestDTO.getEmail());
-        registerRequestDTO.setPassword(passwordEncoder.encode(registerRequestDTO.getPassword()));
-        User newUser = mapper.map(registerRequestDTO, User.class);
+        registerRequestDTO.setPassword(passwordHashingService.encode(registerRequestDTO.getPassword()));
+        User newUser = userMapper.toEntity(registerRequestDTO);
         newUser.setRole("USER");
 
         userRepository.save(newUser);
@@ -35,12 +42,22 @@ public class UserService {
 
     public TokenResponseDTO login(LoginRequestDTO loginRequestDTO) {
         User user = repository.findByEmail(loginRequestDTO.getEmail()).orElseThrow(() -> new EntityNotFoundException("Email or password incorrect"));
-        if(passwordEncoder.matches(loginRequestDTO.getPassword(), user.getPassword())) {
+        if(passwordHashingService.matches(loginRequestDTO.getPassword(), user.getPassword())) {
             return new TokenResponseDTO(this.tokenService.generateToken(user), user.getName(), user.getRole());
         }
         throw new BadCredentialsException("Email or password incorrect");
     }
 
+    public void changeRole(String id, String role) {
+        User user = userRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        // Precisão do timestamp do PostgreSQL, para a instância local e o banco guardarem o mesmo instante
+        Instant changedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        user.setRole(role);
+        user.setRolesChangedAt(changedAt);
+        userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail(), changedAt);
+    }
+
     public void validateEmailUniqueness(String email) {
         if (userRepository.existsByEmail(email)) {
             throw new EmailAlreadyExistsException("Email already exists: " + email);
@@ -0,0 +1,17 @@
+package br.com.system.usegm.domain.user.payload;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoleUpdateDTO {
+
+    @NotEmpty
+    @Pattern(regexp = "ADMIN|USER")
+    private String role;
+}
@@ -1,7 +1,10 @@
 package br.com.system.usegm.exception;
 
+import br.com.system.usegm.exception.stockerror.StockErrorResponse;
 import br.com.system.usegm.exception.validationerror.ValidationError;
 import br.com.system.usegm.exception.validationerror.ValidationErrorResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -16,7 +19,9 @@ import java.util.stream.Collectors;
 public class ExceptionHandlerController {
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<ErrorResponse> globalExceptionHandler(Exception ex) {
+    public ResponseEntity<ErrorResponse> globalExceptionHandler(Exception ex, HttpServletResponse response) {
+        // Stream já iniciado (SSE, exportação) que falhou ou cujo cliente desconectou: não há onde escrever
+        if (response.isCommitted()) return null;
         ErrorResponse message = new ErrorResponse(
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
                 LocalDateTime.now(),
@@ -33,6 +38,62 @@ public class ExceptionHandlerController {
         return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> invalidCursorException(InvalidCursorException ex) {
+        ErrorResponse message = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                LocalDateTime.now(),
+                ex.getMessage());
+        return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidImportFileException.class)
+    public ResponseEntity<ErrorResponse> invalidImportFileException(InvalidImportFileException ex) {
+        ErrorResponse message = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                LocalDateTime.now(),
+                ex.getMessage());
+        return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidImageException.class)
+    public ResponseEntity<ErrorResponse> invalidImageException(InvalidImageException ex) {
+        ErrorResponse message = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                LocalDateTime.now(),
+                ex.getMessage());
+        return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ReferenceAlreadyExistsException.class)
+    public ResponseEntity<ErrorResponse> referenceAlreadyExistsException(ReferenceAlreadyExistsException ex) {
+        ErrorResponse message = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                LocalDateTime.now(),
+                ex.getMessage());
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OrderArchivedException.class)
+    public ResponseEntity<ErrorResponse> orderArchivedException(OrderArchivedException ex) {
+        ErrorResponse message = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                LocalDateTime.now(),
+                ex.getMessage());
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> serviceUnavailableException(ServiceUnavailableException ex) {
+        ErrorResponse message = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                LocalDateTime.now(),
+                ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(message);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ValidationErrorResponse> methodArgumentNotValidException(MethodArgumentNotValidException ex) {
         List<ValidationError> validationErrors = ex.getBindingResult()
@@ -49,4 +110,14 @@ public class ExceptionHandlerController {
 
         return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<StockErrorResponse> insufficientStockException(InsufficientStockException ex) {
+        StockErrorResponse message = new StockErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                LocalDateTime.now(),
+                ex.getMessage(),
+                ex.getErrors());
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
 }
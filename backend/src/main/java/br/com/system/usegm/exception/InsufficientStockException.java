@@ -0,0 +1,21 @@
+package br.com.system.usegm.exception;
+
+import br.com.system.usegm.exception.stockerror.StockError;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+public class InsufficientStockException extends RuntimeException{
+
+    private final List<StockError> errors;
+
+    public InsufficientStockException(List<StockError> errors){
+        super(errors.stream()
+                .map(error -> "Produto " + error.getProductName() + " tem saldo insuficiente. Requerido: "
+                        + error.getRequested() + ", Disponível: " + error.getAvailable())
+                .collect(Collectors.joining("; ")));
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.system.usegm.exception;
+
+public class InvalidCursorException extends RuntimeException{
+
+    public InvalidCursorException(String message){
+        super(message);
+    }
+}
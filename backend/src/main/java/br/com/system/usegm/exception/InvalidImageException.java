@@ -0,0 +1,8 @@
+package br.com.system.usegm.exception;
+
+public class InvalidImageException extends RuntimeException {
+
+    public InvalidImageException(String message) {
+        super(message);
+    }
+}
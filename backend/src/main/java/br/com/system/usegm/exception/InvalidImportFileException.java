@@ -0,0 +1,8 @@
+package br.com.system.usegm.exception;
+
+public class InvalidImportFileException extends RuntimeException{
+
+    public InvalidImportFileException(String message){
+        super(message);
+    }
+}
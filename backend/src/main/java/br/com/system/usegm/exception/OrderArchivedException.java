@@ -0,0 +1,8 @@
+package br.com.system.usegm.exception;
+
+public class OrderArchivedException extends RuntimeException {
+
+    public OrderArchivedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.system.usegm.exception;
+
+public class ReferenceAlreadyExistsException extends RuntimeException {
+
+    public ReferenceAlreadyExistsException(String message) {
+        super(message);
+    }
+}
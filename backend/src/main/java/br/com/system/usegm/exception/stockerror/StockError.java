@@ -0,0 +1,16 @@
+package br.com.system.usegm.exception.stockerror;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StockError {
+
+    private final int line;
+    private final Long productId;
+    private final String productName;
+    private final int requested;
+    private final int available;
+
+}
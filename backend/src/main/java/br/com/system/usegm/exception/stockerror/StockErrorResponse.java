@@ -0,0 +1,18 @@
+package br.com.system.usegm.exception.stockerror;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class StockErrorResponse {
+
+    private int statusCode;
+    private LocalDateTime timestamp;
+    private String message;
+    private List<StockError> errors;
+
+}
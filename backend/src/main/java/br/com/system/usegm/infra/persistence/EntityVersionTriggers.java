@@ -0,0 +1,101 @@
+package br.com.system.usegm.infra.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantém a coluna {@code version} de {@code orders} e {@code products}, base das ETags. O valor
+ * vem de uma sequência global e é renovado por trigger a cada UPDATE, inclusive os feitos por
+ * SQL (estoque, status em massa), que o Hibernate não veria; mudanças em {@code order_products}
+ * renovam a versão do pedido. Por ser global, o maior {@code version} de um conjunto muda
+ * sempre que qualquer linha dele muda. Exclusões não deixam linha para carregar versão: cada
+ * comando que apaga pedidos ou produtos registra uma em {@code entity_deletions}.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class EntityVersionTriggers implements InitializingBean {
+
+    private static final String[] DDL = {
+            "CREATE SEQUENCE IF NOT EXISTS entity_version_seq",
+            """
+            CREATE OR REPLACE FUNCTION next_entity_version() RETURNS trigger AS $$
+            BEGIN
+                NEW.version := nextval('entity_version_seq');
+                RETURN NEW;
+            END $$ LANGUAGE plpgsql
+            """,
+            """
+            CREATE OR REPLACE FUNCTION next_order_version_from_lines() RETURNS trigger AS $$
+            BEGIN
+                IF TG_OP = 'DELETE' THEN
+                    UPDATE orders SET version = 0 WHERE id IN (SELECT DISTINCT order_id FROM old_lines);
+                ELSE
+                    UPDATE orders SET version = 0 WHERE id IN (SELECT DISTINCT order_id FROM new_lines);
+                END IF;
+                RETURN NULL;
+            END $$ LANGUAGE plpgsql
+            """,
+            """
+            CREATE OR REPLACE FUNCTION record_entity_deletion() RETURNS trigger AS $$
+            BEGIN
+                IF EXISTS (SELECT 1 FROM old_rows) THEN
+                    INSERT INTO entity_deletions (table_name) VALUES (TG_TABLE_NAME);
+                END IF;
+                RETURN NULL;
+            END $$ LANGUAGE plpgsql
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS entity_deletions (
+                version bigint PRIMARY KEY DEFAULT nextval('entity_version_seq'),
+                table_name varchar(64) NOT NULL,
+                deleted_at timestamp NOT NULL DEFAULT now()
+            )
+            """,
+            "UPDATE orders SET version = nextval('entity_version_seq') WHERE version IS NULL",
+            "UPDATE products SET version = nextval('entity_version_seq') WHERE version IS NULL",
+            "ALTER TABLE orders ALTER COLUMN version SET DEFAULT nextval('entity_version_seq')",
+            "ALTER TABLE products ALTER COLUMN version SET DEFAULT nextval('entity_version_seq')",
+            "ALTER TABLE orders ALTER COLUMN version SET NOT NULL",
+            "ALTER TABLE products ALTER COLUMN version SET NOT NULL",
+            // max(version) entra na ETag das listagens: sem índice, cada GET varreria a tabela
+            "CREATE INDEX IF NOT EXISTS idx_products_version ON products (version)",
+            "CREATE INDEX IF NOT EXISTS idx_orders_version ON orders (version)",
+            "CREATE INDEX IF NOT EXISTS idx_orders_status_version ON orders (status, version)",
+            "CREATE OR REPLACE TRIGGER trg_orders_version BEFORE UPDATE ON orders FOR EACH ROW EXECUTE FUNCTION next_entity_version()",
+            "CREATE OR REPLACE TRIGGER trg_products_version BEFORE UPDATE ON products FOR EACH ROW EXECUTE FUNCTION next_entity_version()",
+            // Por comando (tabelas de transição): um UPDATE por pedido, não um por linha inserida
+            """
+            CREATE OR REPLACE TRIGGER trg_order_products_insert_version AFTER INSERT ON order_products
+            REFERENCING NEW TABLE AS new_lines FOR EACH STATEMENT EXECUTE FUNCTION next_order_version_from_lines()
+            """,
+            """
+            CREATE OR REPLACE TRIGGER trg_order_products_update_version AFTER UPDATE ON order_products
+            REFERENCING NEW TABLE AS new_lines FOR EACH STATEMENT EXECUTE FUNCTION next_order_version_from_lines()
+            """,
+            """
+            CREATE OR REPLACE TRIGGER trg_order_products_delete_version AFTER DELETE ON order_products
+            REFERENCING OLD TABLE AS old_lines FOR EACH STATEMENT EXECUTE FUNCTION next_order_version_from_lines()
+            """,
+            """
+            CREATE OR REPLACE TRIGGER trg_orders_deletion AFTER DELETE ON orders
+            REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION record_entity_deletion()
+            """,
+            """
+            CREATE OR REPLACE TRIGGER trg_products_deletion AFTER DELETE ON products
+            REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION record_entity_deletion()
+            """
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String ddl : DDL) {
+            jdbcTemplate.execute(ddl);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.system.usegm.infra.persistence;
+
+/**
+ * Contagem de comandos SQL e tempo de banco da requisição corrente, acumulados pelo
+ * {@link StatementCountingDataSource} na thread que abriu a contagem com {@link #start()}.
+ * Trabalho feito em outras threads (intake em grupo, jobs agendados) não entra na conta.
+ */
+public final class SqlStatementStats {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+
+    private SqlStatementStats() {
+    }
+
+    public static SqlStatementStats start() {
+        SqlStatementStats stats = new SqlStatementStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static void record(long elapsedNanos) {
+        SqlStatementStats stats = CURRENT.get();
+        if (stats == null) return;
+        stats.statements++;
+        stats.nanos += elapsedNanos;
+    }
+
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public double getMillis() {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.system.usegm.infra.persistence;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Envolve o pool para contar cada {@code execute*} (um batch conta como um comando) e o tempo
+ * gasto nele, em {@link SqlStatementStats}. Fora de uma contagem aberta o custo é um proxy e uma
+ * leitura de ThreadLocal por chamada. Ligado só com {@code api.debug.sql-stats.enabled}.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static <T> T proxy(Class<T> type, T target) {
+        Object proxy = Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> switch (method.getName()) {
+                    // Identidade do proxy: o Spring compara a conexão da transação com a que recebeu
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    default -> invoke(target, method, args);
+                });
+        return type.cast(proxy);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        boolean counted = target instanceof Statement && method.getName().startsWith("execute") && SqlStatementStats.isActive();
+        long start = counted ? System.nanoTime() : 0;
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            if (counted) SqlStatementStats.record(System.nanoTime() - start);
+        }
+
+        // Statement, PreparedStatement ou CallableStatement, conforme o método da conexão
+        if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+            return proxy(statementType(method), statement);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<Statement> statementType(Method method) {
+        return (Class<Statement>) method.getReturnType();
+    }
+}
@@ -0,0 +1,24 @@
+package br.com.system.usegm.infra.persistence;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Troca o DataSource do contexto pelo {@link StatementCountingDataSource}. O Hikari continua
+ * acessível por {@code unwrap} (métricas do pool, health).
+ */
+@Component
+@ConditionalOnProperty(name = "api.debug.sql-stats.enabled", havingValue = "true")
+public class StatementCountingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+            return new StatementCountingDataSource(dataSource);
+        }
+        return bean;
+    }
+}
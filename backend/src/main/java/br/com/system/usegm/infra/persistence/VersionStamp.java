@@ -0,0 +1,9 @@
+package br.com.system.usegm.infra.persistence;
+
+// Quantidade de linhas e maior versão de um conjunto filtrado; base das ETags de coleção
+public interface VersionStamp {
+
+    long getCount();
+
+    long getMaxVersion();
+}
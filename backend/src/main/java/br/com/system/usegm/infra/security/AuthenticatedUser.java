@@ -0,0 +1,16 @@
+package br.com.system.usegm.infra.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Principal montado a partir das claims do JWT, sem consulta ao banco.
+ * Quem precisar da entidade completa usa {@link UserPrincipalCache#find(String)}.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser {
+
+    private final String email;
+    private final String role;
+}
@@ -1,6 +1,8 @@
 package br.com.system.usegm.infra.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
@@ -43,19 +45,26 @@ public class SecurityConfig {
                 HttpMethod.OPTIONS.name()));
         configuration.setAllowedHeaders(Arrays.asList(
                 HttpHeaders.AUTHORIZATION,
-                HttpHeaders.CONTENT_TYPE));
+                HttpHeaders.CONTENT_TYPE,
+                "Last-Event-ID"));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, CorsConfigurationSource corsConfigurationSource) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, CorsConfigurationSource corsConfigurationSource,
+                                                   @Value("${server.port:8080}") int serverPort,
+                                                   @Value("${management.server.port:-1}") int managementPort,
+                                                   @Value("${api.storage.images.public-read:false}") boolean publicImages) throws Exception {
         http
                 .cors(c -> c.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        // Despacho assíncrono (fim do SSE) de uma requisição que já foi autorizada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC)
+                        .permitAll()
                         .requestMatchers(
                                 "/v1/login",
                                 "/v1/register",
@@ -71,6 +80,14 @@ public class SecurityConfig {
                                 "/swagger-ui.html",
                                 "/ms-users/v3/api-docs")
                         .permitAll()
+                        // Imagens só ficam abertas sem token quando a instalação liga explicitamente
+                        .requestMatchers(request -> publicImages && HttpMethod.GET.matches(request.getMethod())
+                                && request.getRequestURI().matches("/api/v1/products/[^/]+/image"))
+                        .permitAll()
+                        // Porta de gerenciamento separada não é publicada: o scraper lê sem token
+                        .requestMatchers(request -> managementPort != serverPort && request.getLocalPort() == managementPort
+                                && ("/actuator/prometheus".equals(request.getRequestURI()) || "/actuator/health".equals(request.getRequestURI())))
+                        .permitAll()
                         .anyRequest()
                         .authenticated()
                 )
@@ -79,8 +96,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${api.security.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
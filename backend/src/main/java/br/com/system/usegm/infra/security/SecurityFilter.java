@@ -7,6 +7,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,26 +23,50 @@ public class SecurityFilter extends OncePerRequestFilter {
     TokenService tokenService;
     @Autowired
     UserRepository userRepository;
+    @Autowired
+    UserPrincipalCache userPrincipalCache;
+
+    // claims: principal montado do JWT; database: consulta o usuário a cada requisição
+    @Value("${api.security.principal.mode:claims}")
+    String principalMode;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         var token = this.recoverToken(request);
-        var login = tokenService.validateToken(token);
+        var verified = tokenService.verify(token);
 
-        if (login != null) {
-            User user = userRepository.findByEmail(login).orElseThrow(() -> new RuntimeException("User Not Found"));
+        if (verified != null) {
+            Object principal;
+            String role;
+            if ("database".equals(principalMode)) {
+                User user = userRepository.findByEmail(verified.getSubject()).orElseThrow(() -> new RuntimeException("User Not Found"));
+                principal = user;
+                role = user.getRole();
+            } else {
+                role = resolveRole(verified);
+                principal = new AuthenticatedUser(verified.getSubject(), role);
+            }
 
-            var authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
+            var authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role));
 
-            var authentication = new UsernamePasswordAuthenticationToken(user, null, authorities);
+            var authentication = new UsernamePasswordAuthenticationToken(principal, null, authorities);
             SecurityContextHolder.getContext().setAuthentication(authentication);
         }
         filterChain.doFilter(request, response);
     }
 
+    private String resolveRole(VerifiedToken verified) {
+        if (verified.getRole() != null && !userPrincipalCache.roleChangedSince(verified.getSubject(), verified.getIssuedAt())) {
+            return verified.getRole();
+        }
+        return userPrincipalCache.find(verified.getSubject())
+                .map(User::getRole)
+                .orElseThrow(() -> new RuntimeException("User Not Found"));
+    }
+
     private String recoverToken(HttpServletRequest request){
         var authHeader = request.getHeader("Authorization");
         if(authHeader == null) return null;
         return authHeader.replace("Bearer ", "");
     }
-}
\ No newline at end of file
+}
@@ -2,29 +2,58 @@ package br.com.system.usegm.infra.security;
 
 import br.com.system.usegm.domain.user.User;
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.HexFormat;
 
 @Service
 public class TokenService {
-    @Value("${api.security.token.secret}")
-    private String secret;
+
+    private static final String ISSUER = "login-auth-api";
+    public static final Duration TOKEN_TTL = Duration.ofHours(24);
+
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+
+    // Tokens já verificados, pelo SHA-256 do token, até o "exp" de cada um
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public TokenService(@Value("${api.security.token.secret}") String secret,
+                        @Value("${api.security.token.cache-size:10000}") long cacheSize) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withIssuer(ISSUER)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+    }
+
     public String generateToken(User user){
         try {
             String role = user.getRole();
 
-            Algorithm algorithm = Algorithm.HMAC256(secret);
-
             String token = JWT.create()
-                    .withIssuer("login-auth-api")
+                    .withIssuer(ISSUER)
                     .withSubject(user.getEmail())
+                    .withIssuedAt(Instant.now())
                     .withExpiresAt(this.generateExpirationDate())
                     .withClaim("role", role)
                     .sign(algorithm);
@@ -36,19 +65,63 @@ public class TokenService {
     }
 
     public String validateToken(String token){
+        VerifiedToken verified = verify(token);
+        return verified == null ? null : verified.getSubject();
+    }
+
+    /**
+     * Verifica assinatura, emissor e expiração do token. Tokens vistos recentemente são
+     * respondidos pelo cache sem refazer o HMAC.
+     */
+    public VerifiedToken verify(String token){
+        if (token == null || token.isEmpty()) return null;
+
+        String key = hash(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached.getExpiresAt().isAfter(Instant.now()) ? cached : null;
+        }
+
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
-            return JWT.require(algorithm)
-                    .withIssuer("login-auth-api")
-                    .build()
-                    .verify(token)
-                    .getSubject();
+            DecodedJWT decoded = verifier.verify(token);
+            VerifiedToken verified = new VerifiedToken(decoded.getSubject(), decoded.getClaim("role").asString(),
+                    decoded.getIssuedAtAsInstant(), decoded.getExpiresAtAsInstant());
+            if (verified.getExpiresAt() != null) {
+                verifiedTokens.put(key, verified);
+            }
+            return verified;
         } catch (JWTVerificationException exception) {
             return null;
         }
     }
 
     private Instant generateExpirationDate(){
-        return LocalDateTime.now().plusHours(24).toInstant(ZoneOffset.of("-03:00"));
+        return LocalDateTime.now().plus(TOKEN_TTL).toInstant(ZoneOffset.of("-03:00"));
+    }
+
+    private String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,75 @@
+package br.com.system.usegm.infra.security;
+
+import br.com.system.usegm.domain.user.User;
+import br.com.system.usegm.domain.user.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Cache curto de {@link User} por email para as rotas que precisam da entidade completa, e
+ * registro das trocas de perfil: tokens emitidos antes da troca deixam de confiar na claim
+ * "role" e passam a resolver o perfil atual. A troca fica em {@code users.roles_changed_at};
+ * a instância que a fez passa a valer na hora e as demais leem o instante do banco, guardado
+ * por até {@code role-change-ttl} por email.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> users;
+    private final Cache<String, Optional<Instant>> roleChanges;
+
+    public UserPrincipalCache(UserRepository userRepository,
+                              @Value("${api.security.principal.user-cache-ttl:5m}") Duration ttl,
+                              @Value("${api.security.principal.user-cache-size:1000}") long size,
+                              @Value("${api.security.principal.role-change-ttl:30s}") Duration roleChangeTtl) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl)
+                .build();
+        this.roleChanges = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(roleChangeTtl)
+                .build();
+    }
+
+    // Um usuário em cache anterior à última troca conhecida (feita em outra instância) é recarregado
+    public Optional<User> find(String email) {
+        User user = users.get(email, this::load);
+        Instant changedAt = lastRoleChange(email);
+        if (user != null && changedAt != null && (user.getRolesChangedAt() == null || user.getRolesChangedAt().isBefore(changedAt))) {
+            users.invalidate(email);
+            user = users.get(email, this::load);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    public boolean roleChangedSince(String email, Instant issuedAt) {
+        Instant changedAt = lastRoleChange(email);
+        return changedAt != null && (issuedAt == null || !issuedAt.isAfter(changedAt));
+    }
+
+    /**
+     * Deve ser chamado sempre que o perfil de um usuário mudar, com o instante gravado em
+     * {@code rolesChangedAt}.
+     */
+    public void invalidate(String email, Instant changedAt) {
+        roleChanges.put(email, Optional.of(changedAt));
+        users.invalidate(email);
+    }
+
+    private Instant lastRoleChange(String email) {
+        return roleChanges.get(email, userRepository::findRolesChangedAtByEmail).orElse(null);
+    }
+
+    private User load(String email) {
+        return userRepository.findByEmail(email).orElse(null);
+    }
+}
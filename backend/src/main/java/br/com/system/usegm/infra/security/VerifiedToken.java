@@ -0,0 +1,16 @@
+package br.com.system.usegm.infra.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    private final String subject;
+    private final String role;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+}
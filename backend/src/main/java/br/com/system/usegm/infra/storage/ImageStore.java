@@ -0,0 +1,133 @@
+package br.com.system.usegm.infra.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Armazenamento de imagens em disco endereçado pelo SHA-256 do conteúdo.
+ * Arquivos iguais são gravados uma única vez e nunca mudam depois de escritos.
+ */
+@Component
+public class ImageStore {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Path root;
+
+    public ImageStore(@Value("${api.storage.images.path}") String path) {
+        this.root = Paths.get(path).toAbsolutePath().normalize();
+    }
+
+    public String store(byte[] content) {
+        String hash = sha256(content);
+        Path target = resolve(hash);
+        if (Files.exists(target)) return hash;
+
+        try {
+            write(target, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while storing image " + hash, e);
+        }
+        return hash;
+    }
+
+    public byte[] read(String hash) {
+        try {
+            return Files.readAllBytes(resolve(hash));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while reading image " + hash, e);
+        }
+    }
+
+    public boolean exists(String hash) {
+        return Files.isRegularFile(resolve(hash));
+    }
+
+    public Path resolve(String hash) {
+        return shard(root, hash).resolve(hash);
+    }
+
+    /**
+     * Grava uma variante derivada da imagem original (ex.: miniatura), identificada pelo hash
+     * da original e pelo nome da variante.
+     */
+    public void storeVariant(String hash, String variant, byte[] content) {
+        Path target = resolveVariant(hash, variant);
+        try {
+            write(target, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while storing variant " + variant + " of image " + hash, e);
+        }
+    }
+
+    public Path resolveVariant(String hash, String variant) {
+        return shard(root.resolve("variants").resolve(variant), hash).resolve(hash);
+    }
+
+    /**
+     * Escreve o arquivo no corpo da resposta. Quando o conector do Tomcat suporta sendfile o
+     * envio é delegado a ele (cópia zero, direto do page cache para o socket); caso contrário
+     * usa {@link FileChannel#transferTo}.
+     */
+    public void transferTo(Path file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long size = Files.size(file);
+        response.setContentLengthLong(size);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            var out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    private void write(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path shard(Path base, String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid image hash: " + hash);
+        }
+        return base.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4));
+    }
+
+    private String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.system.usegm.infra.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+@Getter
+@AllArgsConstructor
+public class StoredImage {
+
+    private final Path path;
+    private final String contentType;
+    private final String etag;
+    private final boolean immutable;
+}
@@ -0,0 +1,144 @@
+package br.com.system.usegm.infra.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gera miniaturas de tamanho fixo das imagens do {@link ImageStore} em um pool de threads
+ * próprio e limitado. Quem grava a imagem apenas enfileira o trabalho; se a fila estiver cheia
+ * a geração é descartada e refeita na primeira vez que a miniatura for pedida.
+ */
+@Slf4j
+@Service
+public class ThumbnailService implements DisposableBean {
+
+    private static final List<String> FORMATS = List.of("jpg", "png");
+
+    private final ImageStore imageStore;
+    private final List<Integer> sizes;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ThumbnailService(ImageStore imageStore,
+                            @Value("${api.storage.images.thumbnails.sizes:64,256}") List<Integer> sizes,
+                            @Value("${api.storage.images.thumbnails.pool-size:2}") int poolSize,
+                            @Value("${api.storage.images.thumbnails.queue-capacity:100}") int queueCapacity) {
+        this.imageStore = imageStore;
+        this.sizes = sizes.stream().sorted().toList();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("thumbnail-"));
+    }
+
+    public void generateAsync(String hash) {
+        if (!inFlight.add(hash)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(hash);
+                } catch (Exception e) {
+                    log.warn("Error while generating thumbnails for image {}", hash, e);
+                } finally {
+                    inFlight.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(hash);
+            log.debug("Thumbnail queue full, skipping image {}", hash);
+        }
+    }
+
+    /**
+     * Menor tamanho configurado que atende ao pedido, ou vazio quando o pedido é maior
+     * que todas as miniaturas e a imagem original deve ser usada.
+     */
+    public Optional<Integer> sizeFor(int requested) {
+        return sizes.stream().filter(size -> size >= requested).findFirst();
+    }
+
+    /**
+     * Miniatura já gerada para a imagem; se ainda não existir, agenda a geração e devolve vazio.
+     */
+    public Optional<StoredImage> find(String hash, int size) {
+        for (String format : FORMATS) {
+            Path path = imageStore.resolveVariant(hash, variant(size, format));
+            if (Files.isRegularFile(path)) {
+                return Optional.of(new StoredImage(path, "image/" + (format.equals("jpg") ? "jpeg" : format), hash + "-" + size, true));
+            }
+        }
+        generateAsync(hash);
+        return Optional.empty();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void generate(String hash) throws IOException {
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(imageStore.read(hash)));
+        if (source == null) {
+            log.debug("Unsupported image format for thumbnails, image {}", hash);
+            return;
+        }
+
+        boolean alpha = source.getColorModel().hasAlpha();
+        String format = alpha ? "png" : "jpg";
+        for (int size : sizes) {
+            if (Files.isRegularFile(imageStore.resolveVariant(hash, variant(size, format)))) continue;
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(scale(source, size, alpha), format, out);
+            imageStore.storeVariant(hash, variant(size, format), out.toByteArray());
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int size, boolean alpha) {
+        double factor = Math.min(1d, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * factor));
+
+        // Reduz pela metade a cada passo: interpolação bilinear direta perde muita qualidade em reduções grandes
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage step = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private String variant(int size, String format) {
+        return size + "." + format;
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.system.usegm.infra.web;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * ETags fortes a partir das versões de {@code orders}/{@code products} (ver
+ * {@code EntityVersionTriggers}), para {@code ServletWebRequest#checkNotModified(String)}.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(Object... parts) {
+        return Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("-", "\"", "\""));
+    }
+}
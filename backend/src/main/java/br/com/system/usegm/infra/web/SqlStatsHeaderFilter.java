@@ -0,0 +1,99 @@
+package br.com.system.usegm.infra.web;
+
+import br.com.system.usegm.infra.persistence.SqlStatementStats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Modo de desenvolvimento ({@code api.debug.sql-stats.enabled}): cada resposta informa quantos
+ * comandos SQL a requisição executou ({@code X-Sql-Statements}) e o tempo total no banco
+ * ({@code Server-Timing: db;dur=...}, em ms, visível no DevTools). Os cabeçalhos são gravados
+ * quando o corpo começa a ser escrito, então a serialização da resposta não entra na conta;
+ * streams (SSE, exportação) só contam até o primeiro byte.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "api.debug.sql-stats.enabled", havingValue = "true")
+public class SqlStatsHeaderFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String TIMING_HEADER = "Server-Timing";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlStatsResponse wrapped = new SqlStatsResponse(response, SqlStatementStats.start());
+        try {
+            filterChain.doFilter(request, wrapped);
+            wrapped.writeStats();
+        } finally {
+            SqlStatementStats.stop();
+        }
+    }
+
+    private static final class SqlStatsResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatementStats stats;
+        private boolean written;
+
+        private SqlStatsResponse(HttpServletResponse response, SqlStatementStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        private void writeStats() {
+            if (written || isCommitted()) return;
+            written = true;
+            setHeader(STATEMENTS_HEADER, String.valueOf(stats.getStatements()));
+            addHeader(TIMING_HEADER, String.format(Locale.ROOT, "db;dur=%.2f", stats.getMillis()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeStats();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeStats();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeStats();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeStats();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeStats();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeStats();
+            super.sendRedirect(location);
+        }
+    }
+}
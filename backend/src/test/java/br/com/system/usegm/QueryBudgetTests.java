@@ -0,0 +1,237 @@
+package br.com.system.usegm;
+
+import br.com.system.usegm.domain.order.OrderRepository;
+import br.com.system.usegm.infra.web.SqlStatsHeaderFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Orçamento de comandos SQL por endpoint, lido do cabeçalho {@code X-Sql-Statements}. Os pedidos
+ * de teste têm várias linhas de produtos diferentes: um carregamento preguiçoso por linha (N+1)
+ * estoura o orçamento e quebra o build. Ao melhorar um endpoint, baixe o número dele aqui.
+ */
+@SpringBootTest(properties = "api.debug.sql-stats.enabled=true")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTests {
+
+    private static final int LINES = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<Long> orderIds = new ArrayList<>();
+
+    @BeforeAll
+    void createFixtures() throws Exception {
+        for (int i = 0; i < LINES; i++) {
+            String product = """
+                    {"name": "Query budget %1$d", "reference": "QB-%2$d-%1$d", "quantity": 100}
+                    """.formatted(i, System.nanoTime());
+            productIds.add(create(post("/api/v1/products"), product));
+        }
+        orderIds.add(create(post("/api/v1/orders"), order(productIds)));
+        orderIds.add(create(post("/api/v1/orders"), order(productIds.subList(0, 1))));
+    }
+
+    @AfterAll
+    void deleteFixtures() throws Exception {
+        for (Long id : orderIds) {
+            mockMvc.perform(delete("/api/v1/orders/{id}", id).with(admin()));
+        }
+        for (Long id : productIds) {
+            mockMvc.perform(delete("/api/v1/products/{id}", id).with(admin()));
+        }
+    }
+
+    @Test
+    void getOrderById() throws Exception {
+        assertBudget(3, get("/api/v1/orders/{id}", orderIds.getFirst()));
+    }
+
+    @Test
+    void getOrderByIdDoesNotDependOnLines() throws Exception {
+        assertEquals(statements(get("/api/v1/orders/{id}", orderIds.get(1))),
+                statements(get("/api/v1/orders/{id}", orderIds.getFirst())),
+                "GET /api/v1/orders/{id} runs one query per order line");
+    }
+
+    @Test
+    void listOrders() throws Exception {
+        assertBudget(4, get("/api/v1/orders").param("size", "20"));
+    }
+
+    @Test
+    void listOrdersNotModified() throws Exception {
+        MvcResult first = perform(get("/api/v1/orders").param("size", "20"));
+        String tag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult cached = perform(get("/api/v1/orders").param("size", "20").header(HttpHeaders.IF_NONE_MATCH, tag));
+        assertEquals(304, cached.getResponse().getStatus());
+        // Só a consulta da versão
+        assertWithin(1, "GET /api/v1/orders with If-None-Match", cached);
+    }
+
+    @Test
+    void listOrdersTagDependsOnPage() throws Exception {
+        String first = perform(get("/api/v1/orders").param("size", "1")).getResponse().getHeader(HttpHeaders.ETAG);
+        String second = perform(get("/api/v1/orders").param("size", "1").param("page", "1")).getResponse().getHeader(HttpHeaders.ETAG);
+        assertFalse(first.equals(second), "Different pages share the ETag " + first);
+    }
+
+    /**
+     * A versão da listagem roda a cada GET: com varredura sequencial desligada, um plano que ainda
+     * varre alguma tabela indica que falta o índice que serve o max().
+     */
+    @Test
+    void listVersionUsesIndexes() {
+        for (String sql : List.of(OrderRepository.LIST_VERSION_SQL, OrderRepository.LIST_VERSION_BY_STATUS_SQL,
+                OrderRepository.LIST_VERSION_WITH_ARCHIVE_SQL, OrderRepository.LIST_VERSION_WITH_ARCHIVE_BY_STATUS_SQL)) {
+            String plan = explain(sql.replace(":status", "'ABERTO'"));
+            assertFalse(plan.contains("Seq Scan"), "List version query scans a table:\n" + plan);
+        }
+    }
+
+    @Test
+    void listOrdersByCursor() throws Exception {
+        assertBudget(2, get("/api/v1/orders/cursor").param("size", "20"));
+    }
+
+    @Test
+    void listProducts() throws Exception {
+        assertBudget(2, get("/api/v1/products").param("size", "20"));
+    }
+
+    @Test
+    void searchProducts() throws Exception {
+        assertBudget(2, get("/api/v1/products/search").param("q", "QB-"));
+    }
+
+    @Test
+    void updateOrderStatus() throws Exception {
+        assertBudget(5, patch("/api/v1/orders/{id}/status", orderIds.getFirst())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\": \"ABERTO\"}"));
+    }
+
+    @Test
+    void updateOrder() throws Exception {
+        assertBudget(8, put("/api/v1/orders/{id}", orderIds.getFirst())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(order(productIds)));
+    }
+
+    @Test
+    void createAndDeleteOrder() throws Exception {
+        MockHttpServletRequestBuilder create = post("/api/v1/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(order(productIds));
+        MvcResult created = perform(create);
+        Long id = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+        // Inclui a carga dos produtos que ainda não estão no cache do catálogo
+        assertWithin(10, "POST /api/v1/orders", created);
+
+        assertBudget(9, delete("/api/v1/orders/{id}", id));
+    }
+
+    private void assertBudget(int budget, MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = perform(request);
+        assertWithin(budget, result.getRequest().getMethod() + " " + result.getRequest().getRequestURI(), result);
+    }
+
+    private static void assertWithin(int budget, String description, MvcResult result) {
+        int statements = statements(result);
+        assertTrue(statements <= budget,
+                description + " ran " + statements + " SQL statements, budget is " + budget);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+                    while (rows.next()) plan.append(rows.getString(1)).append('\n');
+                } finally {
+                    statement.execute("RESET enable_seqscan");
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private int statements(MockHttpServletRequestBuilder request) throws Exception {
+        return statements(perform(request));
+    }
+
+    private static int statements(MvcResult result) {
+        String header = result.getResponse().getHeader(SqlStatsHeaderFilter.STATEMENTS_HEADER);
+        assertTrue(header != null, "Missing " + SqlStatsHeaderFilter.STATEMENTS_HEADER + " header");
+        return Integer.parseInt(header);
+    }
+
+    private MvcResult perform(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request.with(admin())).andReturn();
+        int status = result.getResponse().getStatus();
+        assertTrue(status < 400, result.getRequest().getMethod() + " " + result.getRequest().getRequestURI()
+                + " failed with " + status + ": " + result.getResponse().getContentAsString());
+        return result;
+    }
+
+    private Long create(MockHttpServletRequestBuilder request, String body) throws Exception {
+        MvcResult result = perform(request.contentType(MediaType.APPLICATION_JSON).content(body));
+        JsonNode created = objectMapper.readTree(result.getResponse().getContentAsString());
+        return created.get("id").asLong();
+    }
+
+    private static String order(List<Long> products) {
+        StringBuilder lines = new StringBuilder();
+        for (Long id : products) {
+            if (!lines.isEmpty()) lines.append(", ");
+            lines.append("{\"id\": ").append(id).append(", \"quantity\": 1}");
+        }
+        return """
+                {"customerDetails": {"name": "Query budget", "email": "budget@usegm.test", "phone": "1"},
+                 "shippingDetails": {"type": "LOJA"},
+                 "products": [%s]}
+                """.formatted(lines);
+    }
+
+    private static RequestPostProcessor admin() {
+        return user("query-budget").roles("ADMIN");
+    }
+}
@@ -0,0 +1,131 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.dto.OrderRequest;
+import br.com.system.usegm.domain.order.dto.ProductOrderRequest;
+import br.com.system.usegm.domain.order.embeddable.CustomerDetails;
+import br.com.system.usegm.domain.order.embeddable.ShippingDetails;
+import br.com.system.usegm.domain.order.embeddable.ShippingTypeEnum;
+import br.com.system.usegm.domain.product.Product;
+import br.com.system.usegm.domain.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pedidos arquivados continuam legíveis por id, mas são somente leitura: alterar ou excluir um
+ * deles responde 409, e não 404 como um id que nunca existiu.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderArchiveTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${api.orders.archive.enabled}")
+    private boolean archiveEnabled;
+
+    private Long productId;
+    private Long orderId;
+
+    @BeforeEach
+    void archiveOrder() {
+        Product product = new Product();
+        product.setName("Archive test");
+        product.setReference("AT-" + System.nanoTime());
+        product.setQuantity(10);
+        product.setCreatedAt(LocalDateTime.now());
+        productId = productRepository.save(product).getId();
+        orderId = orderService.createOrder(orderRequest()).getId();
+        jdbcTemplate.update("UPDATE orders SET status = 'COMPLETO', created_at = now() - interval '10 years' WHERE id = ?", orderId);
+        orderArchiveService.archive();
+    }
+
+    @AfterEach
+    void deleteArchivedOrder() {
+        jdbcTemplate.update("DELETE FROM order_products_archive WHERE order_id = ?", orderId);
+        jdbcTemplate.update("DELETE FROM orders_archive WHERE id = ?", orderId);
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+    }
+
+    @Test
+    void archiveIsDisabledByDefault() {
+        assertFalse(archiveEnabled);
+    }
+
+    @Test
+    void archivedOrderIsStillReadable() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/{id}", orderId).with(admin())).andExpect(status().isOk());
+    }
+
+    @Test
+    void changingArchivedOrderIsConflict() throws Exception {
+        assertStatus(409, put("/api/v1/orders/{id}", orderId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"customerDetails": {"name": "Archive test", "email": "archive@usegm.test", "phone": "1"},
+                         "shippingDetails": {"type": "LOJA"},
+                         "products": [{"id": %d, "quantity": 1}]}
+                        """.formatted(productId)));
+        assertStatus(409, patch("/api/v1/orders/{id}/status", orderId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\": \"ABERTO\"}"));
+        assertStatus(409, delete("/api/v1/orders/{id}", orderId));
+    }
+
+    @Test
+    void unknownOrderIsStillNotFound() throws Exception {
+        long unknown = jdbcTemplate.queryForObject(
+                "SELECT greatest(coalesce(max(id), 0), ?) + 1000 FROM orders", Long.class, orderId);
+        assertStatus(404, delete("/api/v1/orders/{id}", unknown));
+    }
+
+    private void assertStatus(int expected, MockHttpServletRequestBuilder request) throws Exception {
+        mockMvc.perform(request.with(admin())).andExpect(status().is(expected));
+    }
+
+    private OrderRequest orderRequest() {
+        ProductOrderRequest line = new ProductOrderRequest();
+        line.setId(productId);
+        line.setQuantity(1);
+        OrderRequest request = new OrderRequest();
+        request.setCustomerDetails(new CustomerDetails("Archive test", "archive@usegm.test", "1"));
+        ShippingDetails shipping = new ShippingDetails();
+        shipping.setType(ShippingTypeEnum.LOJA);
+        request.setShippingDetails(shipping);
+        request.setProducts(List.of(line));
+        return request;
+    }
+
+    private static RequestPostProcessor admin() {
+        return user("archive-test").roles("ADMIN");
+    }
+}
@@ -0,0 +1,159 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.dto.OrderCursorPage;
+import br.com.system.usegm.domain.order.dto.OrderRequest;
+import br.com.system.usegm.domain.order.dto.OrderResponse;
+import br.com.system.usegm.domain.order.dto.ProductOrderRequest;
+import br.com.system.usegm.domain.order.embeddable.CustomerDetails;
+import br.com.system.usegm.domain.order.embeddable.ShippingDetails;
+import br.com.system.usegm.domain.order.embeddable.ShippingTypeEnum;
+import br.com.system.usegm.domain.product.Product;
+import br.com.system.usegm.domain.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Paginação por cursor ({@code createdAt}, {@code id}): pedidos com a mesma data são desempatados
+ * pelo id sem repetir nem pular linhas na virada de página, e pedidos novos não deslocam as
+ * páginas seguintes. Os pedidos de teste recebem uma data no futuro para abrir a listagem.
+ */
+@SpringBootTest
+class OrderCursorTests {
+
+    private static final LocalDateTime FUTURE = LocalDateTime.of(2999, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+    private final List<Long> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    void createOrders() {
+        Product product = new Product();
+        product.setName("Cursor test");
+        product.setReference("CT-" + System.nanoTime());
+        product.setQuantity(100);
+        product.setCreatedAt(LocalDateTime.now());
+        productId = productRepository.save(product).getId();
+        for (int i = 0; i < 5; i++) {
+            orderIds.add(createOrder(FUTURE));
+        }
+    }
+
+    @AfterEach
+    void deleteOrders() {
+        orderIds.forEach(orderService::deleteOrder);
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+    }
+
+    @Test
+    void pagesBreakTiesOnCreatedAtById() {
+        List<Long> expected = orderIds.stream().sorted(Comparator.reverseOrder()).toList();
+
+        OrderCursorPage first = orderService.getOrdersByCursor(null, null, 2, false);
+        OrderCursorPage second = orderService.getOrdersByCursor(null, first.getNextCursor(), 2, false);
+        OrderCursorPage third = orderService.getOrdersByCursor(null, second.getNextCursor(), 2, false);
+
+        assertEquals(expected.subList(0, 2), ids(first));
+        assertEquals(expected.subList(2, 4), ids(second));
+        assertEquals(expected.get(4), ids(third).getFirst());
+        assertTrue(first.isHasNext() && second.isHasNext());
+    }
+
+    @Test
+    void newerOrdersDoNotShiftLaterPages() {
+        List<Long> expected = orderIds.stream().sorted(Comparator.reverseOrder()).toList();
+        OrderCursorPage first = orderService.getOrdersByCursor(null, null, 2, false);
+
+        orderIds.add(createOrder(FUTURE.plusDays(1)));
+        orderIds.add(createOrder(FUTURE));
+        OrderCursorPage second = orderService.getOrdersByCursor(null, first.getNextCursor(), 2, false);
+
+        // O novo com a mesma data tem id maior: fica antes do cursor, não repete nem empurra a página
+        assertEquals(expected.subList(2, 4), ids(second));
+    }
+
+    @Test
+    void statusFilterPagesOnlyMatchingOrders() {
+        jdbcTemplate.update("UPDATE orders SET status = 'ABERTO' WHERE id IN (?, ?)", orderIds.get(1), orderIds.get(3));
+
+        OrderCursorPage first = orderService.getOrdersByCursor(OrderStatusEnum.ABERTO, null, 1, false);
+        OrderCursorPage second = orderService.getOrdersByCursor(OrderStatusEnum.ABERTO, first.getNextCursor(), 1, false);
+
+        assertEquals(List.of(orderIds.get(3)), ids(first));
+        assertEquals(List.of(orderIds.get(1)), ids(second));
+    }
+
+    @Test
+    void archivePathPagesLikeTheHotTable() {
+        List<Long> hot = new ArrayList<>();
+        List<Long> withArchive = new ArrayList<>();
+        String hotCursor = null;
+        String archiveCursor = null;
+        for (int page = 0; page < 3; page++) {
+            OrderCursorPage hotPage = orderService.getOrdersByCursor(null, hotCursor, 2, false);
+            OrderCursorPage archivePage = orderService.getOrdersByCursor(null, archiveCursor, 2, true);
+            hot.addAll(ids(hotPage));
+            withArchive.addAll(ids(archivePage));
+            hotCursor = hotPage.getNextCursor();
+            archiveCursor = archivePage.getNextCursor();
+        }
+
+        assertEquals(hot.subList(0, 5), withArchive.subList(0, 5));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        OrderCursorPage page = orderService.getOrdersByCursor(null, null, 2, false);
+        List<Long> seen = new ArrayList<>(ids(page));
+        // Percorre a listagem inteira: sem repetições e termina sem cursor
+        while (page.isHasNext()) {
+            page = orderService.getOrdersByCursor(null, page.getNextCursor(), 100, false);
+            seen.addAll(ids(page));
+        }
+
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+        assertEquals(seen.size(), seen.stream().distinct().count());
+        assertTrue(seen.containsAll(orderIds));
+    }
+
+    private Long createOrder(LocalDateTime createdAt) {
+        ProductOrderRequest line = new ProductOrderRequest();
+        line.setId(productId);
+        line.setQuantity(1);
+        OrderRequest request = new OrderRequest();
+        request.setCustomerDetails(new CustomerDetails("Cursor test", "cursor@usegm.test", "1"));
+        ShippingDetails shipping = new ShippingDetails();
+        shipping.setType(ShippingTypeEnum.LOJA);
+        request.setShippingDetails(shipping);
+        request.setProducts(List.of(line));
+        Long id = orderService.createOrder(request).getId();
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), id);
+        return id;
+    }
+
+    private static List<Long> ids(OrderCursorPage page) {
+        return page.getContent().stream().map(OrderResponse::getId).toList();
+    }
+}
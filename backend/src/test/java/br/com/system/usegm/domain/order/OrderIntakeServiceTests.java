@@ -0,0 +1,52 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.dto.OrderRequest;
+import br.com.system.usegm.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Espera limitada do commit em grupo: sem a thread de gravação (parada ou morta) quem criou o
+ * pedido recebe 503 em vez de prender a thread da requisição.
+ */
+class OrderIntakeServiceTests {
+
+    // Sem afterPropertiesSet a thread de gravação nunca sobe, como se tivesse morrido
+    private static OrderIntakeService intakeWithoutWriter(Duration timeout) {
+        return new OrderIntakeService(null, null, null, null, null, null, null, new SimpleMeterRegistry(),
+                true, 50, Duration.ofMillis(5), timeout, 10);
+    }
+
+    @Test
+    void createOrderTimesOutWhenWriterIsNotRunning() {
+        OrderIntakeService intake = intakeWithoutWriter(Duration.ofMillis(200));
+
+        ServiceUnavailableException error = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(ServiceUnavailableException.class, () -> intake.createOrder(new OrderRequest())));
+        assertEquals("Order intake timed out, try again", error.getMessage());
+    }
+
+    @Test
+    void destroyFailsQueuedOrdersAndRejectsNewOnes() throws Exception {
+        OrderIntakeService intake = intakeWithoutWriter(Duration.ofMinutes(1));
+        CompletableFuture<Object> waiting = CompletableFuture.supplyAsync(() -> intake.createOrder(new OrderRequest()));
+        Thread.sleep(200);
+
+        intake.destroy();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceUnavailableException.class, error.getCause());
+        assertEquals("Order intake stopped, try again", error.getCause().getMessage());
+        assertThrows(ServiceUnavailableException.class, () -> intake.createOrder(new OrderRequest()));
+    }
+}
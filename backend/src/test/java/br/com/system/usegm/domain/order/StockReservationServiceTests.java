@@ -0,0 +1,231 @@
+package br.com.system.usegm.domain.order;
+
+import br.com.system.usegm.domain.order.dto.ProductOrderRequest;
+import br.com.system.usegm.domain.product.Product;
+import br.com.system.usegm.domain.product.ProductCatalogCache;
+import br.com.system.usegm.domain.product.ProductRepository;
+import br.com.system.usegm.exception.EntityNotFoundException;
+import br.com.system.usegm.exception.InsufficientStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Reserva de estoque contra o banco: o {@code quantity >= ?} do UPDATE decide o saldo mesmo com
+ * pedidos em paralelo, as linhas são travadas em ordem de id e o catálogo em cache nunca decide
+ * sozinho se um produto existe ou tem saldo. Cobre também a reserva em lote do intake em grupo.
+ */
+@SpringBootTest
+class StockReservationServiceTests {
+
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @AfterEach
+    void deleteProducts() {
+        productIds.forEach(id -> jdbcTemplate.update("DELETE FROM products WHERE id = ?", id));
+    }
+
+    @Test
+    void parallelOrdersNeverOversell() throws Exception {
+        Long product = product(10);
+
+        List<Callable<Boolean>> orders = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            orders.add(() -> {
+                try {
+                    reserve(line(product, 1));
+                    return true;
+                } catch (InsufficientStockException e) {
+                    return false;
+                }
+            });
+        }
+
+        assertEquals(10, runTogether(orders).stream().filter(Boolean::booleanValue).count());
+        assertEquals(0, quantity(product));
+    }
+
+    @Test
+    void ordersWithTheSameProductsInOppositeOrderDoNotDeadlock() throws Exception {
+        Long first = product(100);
+        Long second = product(100);
+
+        List<Callable<Boolean>> orders = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            List<ProductOrderRequest> lines = i % 2 == 0
+                    ? List.of(line(first, 1), line(second, 1))
+                    : List.of(line(second, 1), line(first, 1));
+            orders.add(() -> transactionTemplate.execute(status -> {
+                stockReservationService.reserve(lines, new Order());
+                // Segura as linhas travadas para que as transações se sobreponham
+                sleep(20);
+                return true;
+            }));
+        }
+
+        // Um deadlock faria o PostgreSQL abortar uma das transações e o get() lançaria a exceção
+        assertEquals(20, runTogether(orders).size());
+        assertEquals(80, quantity(first));
+        assertEquals(80, quantity(second));
+    }
+
+    @Test
+    void productNotYetCachedIsLoadedFromDatabase() {
+        Long product = product(5);
+        productCatalogCache.evict(product);
+
+        List<OrderProduct> lines = reserve(line(product, 2));
+
+        assertEquals(product, lines.getFirst().getProduct().getId());
+        assertEquals(3, quantity(product));
+    }
+
+    @Test
+    void missingProductFailsTheWholeOrder() {
+        Long product = product(5);
+        long missing = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) + 1000 FROM products", Long.class);
+
+        EntityNotFoundException error = assertThrows(EntityNotFoundException.class,
+                () -> reserve(line(product, 1), line(missing, 1)));
+
+        assertEquals("Product with ID " + missing + " not found", error.getMessage());
+        assertEquals(5, quantity(product));
+    }
+
+    @Test
+    void productDeletedBehindTheCacheIsNotReserved() {
+        Long product = product(5);
+        productCatalogCache.getAll(List.of(product));
+        // Apagado sem passar pelo serviço: o catálogo ainda o tem, o UPDATE não acha a linha
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", product);
+
+        InsufficientStockException error = assertThrows(InsufficientStockException.class, () -> reserve(line(product, 1)));
+
+        assertEquals(0, error.getErrors().getFirst().getAvailable());
+        productCatalogCache.evict(product);
+    }
+
+    @Test
+    void batchServesOrdersInArrivalOrderAndFailsEachOnItsOwn() {
+        Long product = product(10);
+        long missing = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) + 1000 FROM products", Long.class);
+        List<Order> orders = List.of(new Order(), new Order(), new Order(), new Order());
+
+        List<RuntimeException> failures = transactionTemplate.execute(status -> stockReservationService.reserveAll(orders, List.of(
+                List.of(line(product, 6)),
+                List.of(line(product, 6)),
+                List.of(line(product, 4)),
+                List.of(line(product, 1), line(missing, 1)))));
+
+        assertNull(failures.get(0));
+        InsufficientStockException insufficient = assertInstanceOf(InsufficientStockException.class, failures.get(1));
+        assertEquals(4, insufficient.getErrors().getFirst().getAvailable());
+        assertNull(failures.get(2));
+        assertInstanceOf(EntityNotFoundException.class, failures.get(3));
+        assertEquals(6, orders.get(0).getOrderProducts().getFirst().getQuantity());
+        assertEquals(0, quantity(product));
+    }
+
+    @Test
+    void parallelBatchesNeverOversell() throws Exception {
+        Long product = product(10);
+
+        List<Callable<Long>> batches = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batches.add(() -> transactionTemplate.execute(status -> {
+                List<Order> orders = List.of(new Order(), new Order(), new Order());
+                List<List<ProductOrderRequest>> lines = List.of(List.of(line(product, 1)), List.of(line(product, 1)), List.of(line(product, 1)));
+                return stockReservationService.reserveAll(orders, lines).stream().filter(failure -> failure == null).count();
+            }));
+        }
+
+        assertEquals(10, runTogether(batches).stream().mapToLong(Long::longValue).sum());
+        assertEquals(0, quantity(product));
+    }
+
+    private List<OrderProduct> reserve(ProductOrderRequest... lines) {
+        return transactionTemplate.execute(status -> stockReservationService.reserve(List.of(lines), new Order()));
+    }
+
+    private Long product(int quantity) {
+        Product product = new Product();
+        product.setName("Reservation test");
+        product.setReference("RT-" + System.nanoTime());
+        product.setQuantity(quantity);
+        product.setCreatedAt(LocalDateTime.now());
+        Long id = productRepository.save(product).getId();
+        productIds.add(id);
+        return id;
+    }
+
+    private int quantity(Long product) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, product);
+    }
+
+    private static ProductOrderRequest line(Long product, int quantity) {
+        ProductOrderRequest line = new ProductOrderRequest();
+        line.setId(product);
+        line.setQuantity(quantity);
+        return line;
+    }
+
+    // Dispara todas as tarefas juntas e devolve os resultados; a exceção de qualquer uma falha o teste
+    private static <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package br.com.system.usegm.domain.product;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reservas de produtos quentes que terminam depois de um ajuste manual: a desfeita devolve o que
+ * tirou e a confirmada não tira de novo, sem deixar o saldo acima do ajustado.
+ */
+class HotStockLedgerTests {
+
+    private static final long PRODUCT = 1L;
+
+    private HotStockLedger ledger;
+
+    @AfterEach
+    void stopLedger() {
+        if (ledger != null) ledger.destroy();
+    }
+
+    @Test
+    void rolledBackReservationDoesNotAddToAdjustedStock() {
+        ledger = ledger(100);
+        List<TransactionSynchronization> order = open(() -> assertTrue(ledger.tryReserve(PRODUCT, 10)));
+
+        inTransaction(() -> assertEquals(-50, ledger.adjustTo(PRODUCT, 50)));
+        complete(order, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(50, ledger.available(PRODUCT).orElseThrow());
+    }
+
+    @Test
+    void committedReservationIsTakenFromAdjustedStock() {
+        ledger = ledger(100);
+        List<TransactionSynchronization> order = open(() -> assertTrue(ledger.tryReserve(PRODUCT, 10)));
+
+        inTransaction(() -> ledger.adjustTo(PRODUCT, 50));
+        assertEquals(40, ledger.available(PRODUCT).orElseThrow());
+        complete(order, TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(40, ledger.available(PRODUCT).orElseThrow());
+    }
+
+    @Test
+    void concurrentReservationsAndAdjustmentsEndAtLastAdjustment() throws Exception {
+        ledger = ledger(100);
+        int reservers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(reservers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            for (int i = 0; i < reservers; i++) {
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < 5_000; n++) {
+                        // Toda reserva é desfeita: no fim só o último ajuste define o saldo
+                        complete(open(() -> ledger.tryReserve(PRODUCT, 3)), TransactionSynchronization.STATUS_ROLLED_BACK);
+                    }
+                    return null;
+                }));
+            }
+            tasks.add(executor.submit(() -> {
+                start.await();
+                for (int n = 0; n < 2_000; n++) {
+                    int target = n % 2 == 0 ? 20 : 200;
+                    inTransaction(() -> ledger.adjustTo(PRODUCT, target));
+                }
+                inTransaction(() -> ledger.adjustTo(PRODUCT, 70));
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(70, ledger.available(PRODUCT).orElseThrow());
+    }
+
+    private static HotStockLedger ledger(int quantity) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public void execute(String sql) {
+            }
+
+            @Override
+            public int update(String sql) {
+                return 0;
+            }
+
+            @Override
+            public int update(String sql, Object... args) {
+                return 1;
+            }
+
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+                try {
+                    ResultSet row = mock(ResultSet.class);
+                    when(row.getLong("id")).thenReturn(PRODUCT);
+                    when(row.getInt("quantity")).thenReturn(quantity);
+                    rch.processRow(row);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        HotStockLedger ledger = new HotStockLedger(jdbcTemplate, List.of(PRODUCT), Duration.ofHours(1));
+        ledger.afterPropertiesSet();
+        return ledger;
+    }
+
+    private static void inTransaction(Runnable work) {
+        complete(open(work), TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    // Roda work numa "transação" da thread atual e a deixa aberta, devolvendo o que roda ao terminar
+    private static List<TransactionSynchronization> open(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void complete(List<TransactionSynchronization> synchronizations, int status) {
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+}
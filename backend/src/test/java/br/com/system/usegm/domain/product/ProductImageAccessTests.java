@@ -0,0 +1,41 @@
+package br.com.system.usegm.domain.product;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Com {@code api.storage.images.public-read} desligado (padrão), a imagem do produto exige token
+ * como o resto da API.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductImageAccessTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void anonymousRequestIsDenied() throws Exception {
+        mockMvc.perform(get("/api/v1/products/{id}/image", missingProduct())).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void authenticatedRequestReachesTheEndpoint() throws Exception {
+        mockMvc.perform(get("/api/v1/products/{id}/image", missingProduct()).with(user("image-test").roles("USER")))
+                .andExpect(status().isNotFound());
+    }
+
+    private long missingProduct() {
+        return jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) + 1000 FROM products", Long.class);
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.system.usegm.domain.product;
+
+import br.com.system.usegm.domain.product.dto.ProductImportError;
+import br.com.system.usegm.domain.product.dto.ProductImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Leitura do CSV (campos entre aspas com delimitador, aspas e quebras de linha) e o isolamento de
+ * linhas com erro quando um lote inteiro é desfeito.
+ */
+class ProductImportServiceTests {
+
+    private final List<ProductImportRow> written = new ArrayList<>();
+    private final List<Integer> batches = new ArrayList<>();
+
+    @Test
+    void quotedFieldsKeepDelimitersQuotesAndLineBreaks() throws IOException {
+        ProductImportReport report = importCsv(3, """
+                reference,name,quantity
+                R1,"Caneca, azul",5
+                R2,"Camiseta \"\"G\"\"",7
+                R3,"Kit
+                com
+
+                duas linhas",9
+                R4,Boné,1
+                """);
+
+        assertEquals(4, report.getReceived());
+        assertEquals(0, report.getFailed());
+        assertEquals(List.of("Caneca, azul", "Camiseta \"G\"", "Kit\ncom\n\nduas linhas", "Boné"),
+                written.stream().map(ProductImportRow::getName).toList());
+        // Cada linha conta a partir de onde o registro começa no arquivo
+        assertEquals(List.of(2L, 3L, 4L, 8L), written.stream().map(ProductImportRow::getLine).toList());
+    }
+
+    @Test
+    void semicolonDelimiterAndBlankLines() throws IOException {
+        ProductImportReport report = importCsv(10, """
+                \uFEFFreference;name;quantity
+
+                R1;"Caneca; azul";5
+
+                """);
+
+        assertEquals(1, report.getReceived());
+        assertEquals("Caneca; azul", written.getFirst().getName());
+        assertEquals(3L, written.getFirst().getLine());
+    }
+
+    @Test
+    void unterminatedQuoteFailsOnlyThatRecord() throws IOException {
+        ProductImportReport report = importCsv(10, """
+                reference,name,quantity
+                R1,Caneca,5
+                R2,"Camiseta,7
+                R3,Boné,1
+                """);
+
+        assertEquals(2, report.getReceived());
+        assertEquals(1, report.getCreated());
+        assertEquals(1, report.getFailed());
+        assertError(report.getErrors().getFirst(), 3, null, "unterminated quoted field");
+    }
+
+    @Test
+    void invalidRowsAreReportedWithTheirLine() throws IOException {
+        ProductImportReport report = importCsv(10, """
+                reference,name,quantity
+                R1,"Caneca
+                azul",x
+                ,Boné,1
+                """);
+
+        assertEquals(2, report.getFailed());
+        assertError(report.getErrors().get(0), 2, "R1", "quantity must be an integer");
+        assertError(report.getErrors().get(1), 4, "", "reference is required");
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRow() throws IOException {
+        ProductImportReport report = importCsv(3, """
+                reference,name,quantity
+                R1,Caneca,5
+                BAD,Camiseta,7
+                R3,Boné,1
+                R4,Kit,2
+                """);
+
+        // Lote [R1, BAD, R3] falha, é regravado linha a linha; R4 fica no segundo lote
+        assertEquals(List.of(3, 1, 1, 1, 1), batches);
+        assertEquals(List.of("R1", "R3", "R4"), written.stream().map(ProductImportRow::getReference).toList());
+        assertEquals(4, report.getReceived());
+        assertEquals(3, report.getCreated());
+        assertEquals(1, report.getFailed());
+        assertError(report.getErrors().getFirst(), 3, "BAD", "duplicate key");
+    }
+
+    private ProductImportReport importCsv(int batchSize, String csv) throws IOException {
+        ProductImportWriter writer = mock(ProductImportWriter.class);
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<ProductImportRow> rows = invocation.getArgument(0);
+            batches.add(rows.size());
+            if (rows.stream().anyMatch(row -> row.getReference().equals("BAD"))) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            written.addAll(rows);
+            return new ProductImportWriter.Result(rows.size(), 0);
+        });
+        ProductImportService service = new ProductImportService(writer, new ObjectMapper(), batchSize, 100);
+        return service.importCsv(new BufferedReader(new StringReader(csv)));
+    }
+
+    private static void assertError(ProductImportError error, long line, String reference, String message) {
+        assertEquals(line, error.getLine());
+        assertEquals(reference, error.getReference());
+        assertEquals(message, error.getMessage());
+    }
+}